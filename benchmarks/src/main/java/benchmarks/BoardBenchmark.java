@@ -0,0 +1,92 @@
+package benchmarks;
+
+import core.BoardState;
+import core.GameEngine;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The shared state of the board benchmarks: a board of each grid size filled to a given level.
+ *
+ * @author Evan Razzaque
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BoardBenchmark {
+    /**
+     * The size of the grid
+     */
+    @Param({"4", "8", "16", "25"})
+    public int gridSize;
+
+    /**
+     * The fraction of cells that contain a number
+     */
+    @Param({"0.25", "0.5", "0.9"})
+    public double fill;
+
+    /**
+     * The board each invocation starts from
+     */
+    protected BoardState template;
+
+    /**
+     * The board each invocation works on
+     */
+    protected BoardState board;
+
+    /**
+     * The engine used to perform moves
+     */
+    protected GameEngine engine;
+
+    /**
+     * A method to create the boards and engine.
+     */
+    @Setup(Level.Trial)
+    public void setUpBoard() {
+        template = createBoard(gridSize, fill, 2048);
+        board = template.copy();
+        engine = new GameEngine(gridSize);
+    }
+
+    /**
+     * A method to create a board with random numbers from 2 to 1024.
+     *
+     * @param gridSize The size of the grid
+     * @param fill The fraction of cells that contain a number
+     * @param seed The seed used to place the numbers
+     * @return the board
+     */
+    public static BoardState createBoard(int gridSize, double fill, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BoardState board = new BoardState(gridSize);
+        int cells = gridSize * gridSize;
+        int numbers = (int) Math.round(cells * fill);
+
+        for (int i = 0; i < numbers; i++) {
+            int cell = random.nextInt(cells);
+            while (board.getExponent(cell) != 0) cell = (cell + 1) % cells;
+
+            board.setExponent(cell, 1 + random.nextInt(10));
+        }
+
+        return board;
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks of checking whether any move can still be made.
+ *
+ * @author Evan Razzaque
+ */
+public class GameOverBenchmark extends BoardBenchmark {
+    /**
+     * Measures reading the number of pairs of neighbouring cells with equal numbers.
+     *
+     * @return the number of playable moves
+     */
+    @Benchmark
+    public int playableMoves() {
+        return template.getPlayableMoves();
+    }
+
+    /**
+     * Measures the game over check {@code Grid} performs after every move.
+     *
+     * @return whether the game is over
+     */
+    @Benchmark
+    public boolean isGameOver() {
+        return template.isGameOver();
+    }
+
+    /**
+     * Measures changing a cell and changing it back, which updates the board's move counts.
+     *
+     * @return whether the game is over afterwards
+     */
+    @Benchmark
+    public boolean setExponent() {
+        int exponent = board.getExponent(0);
+
+        board.setExponent(0, exponent + 1);
+        board.setExponent(0, exponent);
+
+        return board.isGameOver();
+    }
+}
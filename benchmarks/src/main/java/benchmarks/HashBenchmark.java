@@ -0,0 +1,48 @@
+package benchmarks;
+
+import core.BoardState;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks of hashing boards, as the solvers' transposition tables do for every searched board.
+ *
+ * @author Evan Razzaque
+ */
+public class HashBenchmark extends BoardBenchmark {
+    /**
+     * Measures reading the board's incrementally kept Zobrist hash.
+     *
+     * @return the hash
+     */
+    @Benchmark
+    public long hash() {
+        return template.hash();
+    }
+
+    /**
+     * Measures hashing every cell from scratch, which reading the hash replaces.
+     *
+     * @return the hash
+     */
+    @Benchmark
+    public long hashFromScratch() {
+        long hash = BoardState.emptyHash(gridSize);
+
+        for (int cell = 0; cell < gridSize * gridSize; cell++)
+            hash ^= BoardState.zobristKey(cell, template.getExponent(cell));
+
+        return hash;
+    }
+
+    /**
+     * Measures copying a board, which copies its hash along with its cells.
+     *
+     * @return the copied board's hash
+     */
+    @Benchmark
+    public long copyAndHash() {
+        board.copyFrom(template);
+
+        return board.hash();
+    }
+}
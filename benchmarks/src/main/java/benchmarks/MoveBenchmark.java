@@ -0,0 +1,40 @@
+package benchmarks;
+
+import core.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks of moving the numbers on a board in each direction.
+ *
+ * @author Evan Razzaque
+ */
+public class MoveBenchmark extends BoardBenchmark {
+    /**
+     * The direction to move the numbers in
+     */
+    @Param({"LEFT", "RIGHT", "UP", "DOWN"})
+    public Direction direction;
+
+    /**
+     * Measures copying the board, which every move benchmark includes.
+     *
+     * @return the copied board's number count
+     */
+    @Benchmark
+    public int copyOnly() {
+        board.copyFrom(template);
+        return board.getNumberCount();
+    }
+
+    /**
+     * Measures moving a copy of the board.
+     *
+     * @return the points gained by the move
+     */
+    @Benchmark
+    public long move() {
+        board.copyFrom(template);
+        return engine.move(board, direction).getScoreDelta();
+    }
+}
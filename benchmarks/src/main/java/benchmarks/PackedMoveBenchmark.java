@@ -0,0 +1,100 @@
+package benchmarks;
+
+import core.Bitboard;
+import core.BoardState;
+import core.Direction;
+import core.Heuristic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of playing a 4x4 board packed into a {@link Bitboard}, to compare with {@link MoveBenchmark}
+ * and {@link GameOverBenchmark} on the same boards.
+ *
+ * @author Evan Razzaque
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackedMoveBenchmark {
+    /**
+     * The fraction of cells that contain a number
+     */
+    @Param({"0.25", "0.5", "0.9"})
+    public double fill;
+
+    /**
+     * The direction to move the numbers in
+     */
+    @Param({"LEFT", "RIGHT", "UP", "DOWN"})
+    public Direction direction;
+
+    /**
+     * The packed board each invocation starts from
+     */
+    private long board;
+
+    /**
+     * A method to create the board.
+     */
+    @Setup(Level.Trial)
+    public void setUpBoard() {
+        BoardState state = BoardBenchmark.createBoard(Bitboard.SIZE, fill, 2048);
+        board = Bitboard.pack(state);
+    }
+
+    /**
+     * Measures moving the board, which needs no copy since the board is a single value.
+     *
+     * @return the moved board
+     */
+    @Benchmark
+    public long move() {
+        return Bitboard.move(board, direction);
+    }
+
+    /**
+     * Measures the points gained by moving the board.
+     *
+     * @return the points gained by the move
+     */
+    @Benchmark
+    public long score() {
+        return Bitboard.score(board, direction);
+    }
+
+    /**
+     * Measures the game over check.
+     *
+     * @return whether the game is over
+     */
+    @Benchmark
+    public boolean isGameOver() {
+        return Bitboard.isGameOver(board);
+    }
+
+    /**
+     * Measures evaluating the board with the line table of the {@link Heuristic}.
+     *
+     * @return the value of the board
+     */
+    @Benchmark
+    public double evaluate() {
+        return Heuristic.evaluate(board);
+    }
+}
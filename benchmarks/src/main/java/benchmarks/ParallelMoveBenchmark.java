@@ -0,0 +1,88 @@
+package benchmarks;
+
+import core.BoardState;
+import core.Direction;
+import core.GameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of moving the lines of large boards one after another and split across the common fork join pool. <br>
+ * Run with {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism=N} to see how a move scales with the number of threads.
+ *
+ * @author Evan Razzaque
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelMoveBenchmark {
+    /**
+     * The size of the grid
+     */
+    @Param({"32", "64", "256", "1024"})
+    public int gridSize;
+
+    /**
+     * Whether lines are moved in parallel
+     */
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    /**
+     * The direction to move the numbers in
+     */
+    @Param({"LEFT", "UP"})
+    public Direction direction;
+
+    /**
+     * The board each invocation starts from
+     */
+    private BoardState template;
+
+    /**
+     * The board each invocation works on
+     */
+    private BoardState board;
+
+    /**
+     * The engine used to perform moves
+     */
+    private GameEngine engine;
+
+    /**
+     * A method to create the boards and engine.
+     */
+    @Setup(Level.Trial)
+    public void setUpBoard() {
+        template = BoardBenchmark.createBoard(gridSize, 0.5, 2048);
+        board = template.copy();
+        engine = new GameEngine(gridSize);
+        engine.setParallel(parallel);
+    }
+
+    /**
+     * Measures moving a copy of the board.
+     *
+     * @return the points gained by the move
+     */
+    @Benchmark
+    public long move() {
+        board.copyFrom(template);
+        return engine.move(board, direction).getScoreDelta();
+    }
+}
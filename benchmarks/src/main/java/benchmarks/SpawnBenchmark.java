@@ -0,0 +1,87 @@
+package benchmarks;
+
+import core.BoardState;
+import core.GameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of adding a random number to a nearly full board.
+ *
+ * @author Evan Razzaque
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+    /**
+     * The size of the grid
+     */
+    @Param({"4", "8", "16", "25"})
+    public int gridSize;
+
+    /**
+     * The number of empty cells on the board
+     */
+    @Param({"1", "8"})
+    public int emptyCells;
+
+    /**
+     * The board each invocation starts from
+     */
+    private BoardState template;
+
+    /**
+     * The board each invocation works on
+     */
+    private BoardState board;
+
+    /**
+     * The engine used to add numbers
+     */
+    private GameEngine engine;
+
+    /**
+     * The random number generator used to add numbers
+     */
+    private SplittableRandom random;
+
+    /**
+     * A method to create the boards and engine.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        int cells = gridSize * gridSize;
+        template = BoardBenchmark.createBoard(gridSize, (double) (cells - Math.min(emptyCells, cells - 1)) / cells, 2048);
+        board = template.copy();
+        engine = new GameEngine(gridSize);
+        random = new SplittableRandom(2048);
+    }
+
+    /**
+     * Measures adding a number to a copy of the board.
+     *
+     * @return the cell the number was added to
+     */
+    @Benchmark
+    public int spawn() {
+        board.copyFrom(template);
+        return engine.spawn(board, random);
+    }
+}
@@ -0,0 +1,188 @@
+package benchmarks;
+
+import core.SaveFormat;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Benchmarks of encoding the board for its save file, and of saving and loading the save file,
+ * comparing the JSON saves with the binary saves written by {@code GameStorage}.
+ *
+ * @author Evan Razzaque
+ */
+public class StorageBenchmark extends BoardBenchmark {
+    /**
+     * The encoded board decoded by {@link #decode()}
+     */
+    private String encoded;
+
+    /**
+     * The binary save decoded by {@link #decodeBinary()}
+     */
+    private ByteBuffer encodedBinary;
+
+    /**
+     * The JSON save file written and read by the benchmarks
+     */
+    private Path saveFile;
+
+    /**
+     * The binary save file written and read by the benchmarks
+     */
+    private Path binarySaveFile;
+
+    /**
+     * A method to encode the board and create the save file.
+     *
+     * @throws IOException if the save file cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUpSave() throws IOException {
+        encoded = template.toString();
+        encodedBinary = SaveFormat.encode(template);
+        saveFile = Files.createTempFile("grid", ".json");
+        binarySaveFile = Files.createTempFile("grid", ".sav");
+        save();
+        saveBinary();
+    }
+
+    /**
+     * A method to delete the save file.
+     *
+     * @throws IOException if the save file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDownSave() throws IOException {
+        Files.deleteIfExists(saveFile);
+        Files.deleteIfExists(binarySaveFile);
+    }
+
+    /**
+     * Measures encoding the board.
+     *
+     * @return the encoded board
+     */
+    @Benchmark
+    public String encode() {
+        return template.toString();
+    }
+
+    /**
+     * Measures decoding the board.
+     *
+     * @return the decoded board's number count
+     */
+    @Benchmark
+    public int decode() {
+        board.load(encoded);
+        return board.getNumberCount();
+    }
+
+    /**
+     * Measures building the save data, which is the only part of saving done on the JavaFX thread.
+     *
+     * @return the save data
+     */
+    @Benchmark
+    public String snapshot() {
+        return new JSONObject()
+            .put("grid", template.toString())
+            .put("highScore", template.getHighScore())
+            .put("score", template.getScore())
+            .put("numberCount", template.getNumberCount())
+            .put("hasWon", template.getHasWon())
+            .put("gameContinued", template.isGameContinued())
+            .toString();
+    }
+
+    /**
+     * Measures writing the save file through a temporary file, like the background save writer.
+     *
+     * @return the size of the saved data
+     * @throws IOException if the save file cannot be written
+     */
+    @Benchmark
+    public int save() throws IOException {
+        String gridData = snapshot();
+        Path tempFile = saveFile.resolveSibling(saveFile.getFileName() + ".tmp");
+
+        Files.writeString(tempFile, gridData);
+        Files.move(tempFile, saveFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return gridData.length();
+    }
+
+    /**
+     * Measures reading the save file.
+     *
+     * @return the loaded board's number count
+     * @throws IOException if the save file cannot be read
+     */
+    @Benchmark
+    public int load() throws IOException {
+        JSONObject gridData = new JSONObject(Files.readString(saveFile));
+
+        board.load(gridData.getString("grid"));
+        board.setHighScore(gridData.getLong("highScore"));
+        board.setScore(gridData.getLong("score"));
+
+        return board.getNumberCount();
+    }
+
+    /**
+     * Measures encoding the board in the binary format.
+     *
+     * @return the size of the encoded board
+     */
+    @Benchmark
+    public int encodeBinary() {
+        return SaveFormat.encode(template).remaining();
+    }
+
+    /**
+     * Measures decoding the board from the binary format.
+     *
+     * @return the decoded board's number count
+     */
+    @Benchmark
+    public int decodeBinary() {
+        SaveFormat.decode(encodedBinary.duplicate(), board);
+        return board.getNumberCount();
+    }
+
+    /**
+     * Measures writing the binary save file through a temporary file, like the background save writer.
+     *
+     * @return the size of the saved data
+     * @throws IOException if the save file cannot be written
+     */
+    @Benchmark
+    public int saveBinary() throws IOException {
+        ByteBuffer saveData = SaveFormat.encode(template);
+        Path tempFile = binarySaveFile.resolveSibling(binarySaveFile.getFileName() + ".tmp");
+
+        Files.write(tempFile, saveData.array());
+        Files.move(tempFile, binarySaveFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return saveData.remaining();
+    }
+
+    /**
+     * Measures reading the binary save file.
+     *
+     * @return the loaded board's number count
+     * @throws IOException if the save file cannot be read
+     */
+    @Benchmark
+    public int loadBinary() throws IOException {
+        SaveFormat.decode(ByteBuffer.wrap(Files.readAllBytes(binarySaveFile)), board);
+        return board.getNumberCount();
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import core.BoardState;
+import core.Direction;
+import core.UndoHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks of recording, undoing and redoing moves,
+ * matching how {@code Grid} records the board before each move.
+ *
+ * @author Evan Razzaque
+ */
+public class UndoBenchmark extends BoardBenchmark {
+    /**
+     * The maximum amount of moves that can be undone
+     */
+    @Param({"1", "1000"})
+    public int undoLimit;
+
+    /**
+     * The history the moves are recorded in
+     */
+    private UndoHistory history;
+
+    /**
+     * The template after a move up, which each other invocation starts from so that every push records a change
+     */
+    private BoardState movedTemplate;
+
+    /**
+     * Whether the next invocation starts from {@link #movedTemplate}
+     */
+    private boolean fromMoved;
+
+    /**
+     * A method to create the history and record a move that can be undone.
+     */
+    @Setup(Level.Trial)
+    public void setUpHistory() {
+        history = new UndoHistory(gridSize, undoLimit);
+        board.copyFrom(template);
+        history.reset(board);
+        history.push(board);
+        engine.move(board, Direction.LEFT);
+
+        movedTemplate = template.copy();
+        engine.move(movedTemplate, Direction.UP);
+    }
+
+    /**
+     * Measures recording the board and moving it, alternating between two different starting boards
+     * so that the history stores the changed cells on every push.
+     *
+     * @return the points gained by the move
+     */
+    @Benchmark
+    public long pushMove() {
+        board.copyFrom(fromMoved ? movedTemplate : template);
+        fromMoved = !fromMoved;
+        history.push(board);
+
+        return engine.move(board, Direction.LEFT).getScoreDelta();
+    }
+
+    /**
+     * Measures undoing the latest move and then redoing it.
+     *
+     * @return the restored board's number count
+     */
+    @Benchmark
+    public int undoRedo() {
+        history.undo(board);
+        history.redo(board);
+
+        return board.getNumberCount();
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import core.BoardState;
+import core.Direction;
+import core.GameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of moving boards with the scalar line kernel and the Vector API line kernel. <br>
+ * The line cache is turned off so that every line goes through the kernel being measured.
+ *
+ * @author Evan Razzaque
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorMoveBenchmark {
+    /**
+     * The size of the grid
+     */
+    @Param({"8", "16", "25", "32", "64"})
+    public int gridSize;
+
+    /**
+     * Whether lines are slid with the Vector API kernel
+     */
+    @Param({"false", "true"})
+    public boolean vector;
+
+    /**
+     * The direction to move the numbers in, where rows are loaded directly and columns are gathered
+     */
+    @Param({"LEFT", "RIGHT", "UP"})
+    public Direction direction;
+
+    /**
+     * The board each invocation starts from
+     */
+    private BoardState template;
+
+    /**
+     * The board each invocation works on
+     */
+    private BoardState board;
+
+    /**
+     * The engine used to perform moves
+     */
+    private GameEngine engine;
+
+    /**
+     * A method to create the boards and engine.
+     */
+    @Setup(Level.Trial)
+    public void setUpBoard() {
+        template = BoardBenchmark.createBoard(gridSize, 0.5, 2048);
+        board = template.copy();
+        engine = new GameEngine(gridSize, false);
+        engine.setParallel(false);
+        engine.setVectorMoves(vector);
+    }
+
+    /**
+     * Measures moving a copy of the board.
+     *
+     * @return the points gained by the move
+     */
+    @Benchmark
+    public long move() {
+        board.copyFrom(template);
+        return engine.move(board, direction).getScoreDelta();
+    }
+}
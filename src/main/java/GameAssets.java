@@ -4,7 +4,6 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.Paint;
 import javafx.util.Duration;
 
 import java.util.HashMap;
@@ -30,8 +29,8 @@ public class GameAssets {
      *
      * @return the hashmap of colors
      */
-    public static HashMap<Long, Paint> getColors() {
-        HashMap<Long, Paint> colors = new HashMap<>();
+    public static HashMap<Long, Color> getColors() {
+        HashMap<Long, Color> colors = new HashMap<>();
         colors.put(2L, Color.valueOf("#eee4da"));
         colors.put(4L, Color.valueOf("#eee1c9"));
         colors.put(8L, Color.valueOf("#f3b27a"));
@@ -56,19 +55,7 @@ public class GameAssets {
      * @return the render timeline
      */
     public static Timeline getRenderTimeline(Grid grid, double ms) {
-        return new Timeline(new KeyFrame(Duration.millis(ms), event -> {
-            grid.addNumber();
-            grid.setGridNumbers();
-            grid.renderGrid();
-
-            if (grid.getNumberCount() == grid.getGridSize() * grid.getGridSize()) {
-                if (grid.getPlayableMoves() == 0) {
-                    grid.displayLoseDialog();
-                }
-            } else if (grid.getHasWon() && !grid.isGameContinued()) {
-                grid.displayWinDialog();
-            }
-        }));
+        return new Timeline(new KeyFrame(Duration.millis(ms), event -> grid.finishMove()));
     }
 
     /**
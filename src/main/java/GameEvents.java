@@ -0,0 +1,124 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Java Flight Recorder events of the game. <br>
+ * Events cost almost nothing unless a recording is running, such as one started with
+ * {@code -XX:StartFlightRecording}, so they stay enabled in production builds.
+ *
+ * @author Evan Razzaque
+ */
+public final class GameEvents {
+    /**
+     * A private constructor, since the class only holds the event types.
+     */
+    private GameEvents() {}
+
+    /**
+     * The game logic of a single move.
+     */
+    @Name("twentyfortyeight.Move")
+    @Label("Move")
+    @Category("2048")
+    @Description("Moving the numbers on the board")
+    public static class Move extends Event {
+        /**
+         * The direction the numbers were moved in
+         */
+        @Label("Direction")
+        public String direction;
+
+        /**
+         * The size of the grid
+         */
+        @Label("Grid Size")
+        public int gridSize;
+
+        /**
+         * The number of tiles the move animates
+         */
+        @Label("Tiles")
+        public int tiles;
+    }
+
+    /**
+     * Adding a number to the board.
+     */
+    @Name("twentyfortyeight.Spawn")
+    @Label("Spawn")
+    @Category("2048")
+    @Description("Adding a random number to the board")
+    public static class Spawn extends Event {
+        /**
+         * The cell the number was added to, or -1 if the board was full
+         */
+        @Label("Cell")
+        public int cell;
+    }
+
+    /**
+     * Writing a save file.
+     */
+    @Name("twentyfortyeight.Save")
+    @Label("Save")
+    @Category("2048")
+    @Description("Writing a grid's save file")
+    public static class Save extends Event {
+        /**
+         * The size of the saved grid
+         */
+        @Label("Grid Size")
+        public int gridSize;
+
+        /**
+         * The number of bytes written
+         */
+        @Label("Bytes")
+        public int bytes;
+    }
+
+    /**
+     * Rendering a single frame of the grid.
+     */
+    @Name("twentyfortyeight.RenderFrame")
+    @Label("Render Frame")
+    @Category("2048")
+    @Description("Drawing one frame of the grid")
+    public static class RenderFrame extends Event {
+        /**
+         * The animation step rendered, or 0 for a full render
+         */
+        @Label("Step")
+        public int step;
+
+        /**
+         * The number of cells redrawn
+         */
+        @Label("Cells Redrawn")
+        public int cellsRedrawn;
+    }
+
+    /**
+     * Undoing or redoing a move.
+     */
+    @Name("twentyfortyeight.Undo")
+    @Label("Undo")
+    @Category("2048")
+    @Description("Undoing or redoing a move")
+    public static class Undo extends Event {
+        /**
+         * Whether the move was redone instead of undone
+         */
+        @Label("Redo")
+        public boolean redo;
+
+        /**
+         * Whether a move was restored
+         */
+        @Label("Restored")
+        public boolean restored;
+    }
+}
@@ -0,0 +1,350 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import core.BoardState;
+import core.Direction;
+import core.GameSession;
+import core.LatencyHistogram;
+import core.MoveResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A headless HTTP server that hosts many independent games, for bots and load tests. <br>
+ * Each request is served on its own virtual thread, and the games are kept in a {@link SessionStore}.
+ * Requests and responses are JSON:
+ * <ul>
+ *   <li>{@code POST /games?size=4} starts a game of up to {@link #MAX_GRID_SIZE}x{@link #MAX_GRID_SIZE} and returns its id and state</li>
+ *   <li>{@code GET /games/{id}} returns a game's state</li>
+ *   <li>{@code POST /games/{id}/move/{left|right|up|down}} moves the numbers and adds a number</li>
+ *   <li>{@code POST /games/{id}/undo}, {@code /redo} and {@code /restart}</li>
+ *   <li>{@code GET /stats} returns the request rate, latency percentiles and session counts</li>
+ * </ul>
+ * Usage: {@code GameServer [port] [sessions kept in memory] [undo limit]}
+ *
+ * @author Evan Razzaque
+ */
+public class GameServer {
+    /**
+     * The number of seconds between the request rate and latency reports printed to the console
+     */
+    private static final int REPORT_INTERVAL_SECONDS = 10;
+
+    /**
+     * The largest grid size a game can be started with. Sessions are only limited by count, and a 16x16 session
+     * takes about 10 KB, so a full store of the default 10,000 sessions stays around 100 MB
+     */
+    public static final int MAX_GRID_SIZE = 16;
+
+    /**
+     * The sessions of the games being played
+     */
+    private final SessionStore sessions;
+
+    /**
+     * The HTTP server
+     */
+    private final HttpServer server;
+
+    /**
+     * The time (in nanoseconds) the server started
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * The number of requests served
+     */
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * The latencies (in nanoseconds) of every request served
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * The latencies (in nanoseconds) of the requests served since the latest report
+     */
+    private final AtomicReference<LatencyHistogram> intervalLatencies = new AtomicReference<>(new LatencyHistogram());
+
+    /**
+     * The thread that prints the reports
+     */
+    private final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stats-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A constructor for a game server.
+     *
+     * @param port The port to listen on
+     * @param sessions The store of the games being played
+     */
+    public GameServer(int port, SessionStore sessions) {
+        this.sessions = sessions;
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        server.createContext("/games", this::serve);
+        server.createContext("/stats", this::serve);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * A method to start accepting requests and printing reports.
+     */
+    public void start() {
+        server.start();
+        reporter.scheduleAtFixedRate(this::report, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * A method to stop the server, waiting for every save to be written.
+     */
+    public void stop() {
+        server.stop(1);
+        reporter.shutdownNow();
+        GameStorage.flush();
+    }
+
+    /**
+     * A method to serve a request and record how long it took.
+     *
+     * @param exchange The request and its response
+     * @throws IOException If the response could not be sent
+     */
+    private void serve(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        int status = 200;
+        JSONObject body;
+
+        try (exchange) {
+            try {
+                body = route(exchange.getRequestMethod(), exchange.getRequestURI().getPath(), exchange.getRequestURI().getQuery());
+                if (body == null) {
+                    status = 404;
+                    body = error("Not found");
+                }
+            } catch (UnsupportedOperationException e) {
+                status = 405;
+                body = error(e.getMessage());
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = error(e.getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                body = error(e.toString());
+            }
+
+            byte[] response = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } finally {
+            long latency = System.nanoTime() - start;
+
+            requests.incrementAndGet();
+            latencies.record(latency);
+            intervalLatencies.get().record(latency);
+        }
+    }
+
+    /**
+     * A method to perform the action a request asks for.
+     *
+     * @param method The request's HTTP method
+     * @param path The request's path
+     * @param query The request's query string, or null if it has none
+     * @return the response, or null if the path does not exist
+     * @throws IllegalArgumentException If the request is invalid
+     * @throws UnsupportedOperationException If the path does not allow the request's method
+     */
+    private JSONObject route(String method, String path, String query) {
+        String[] parts = path.split("/");
+
+        if (path.equals("/stats")) {
+            requireMethod(method, "GET");
+            return stats();
+        }
+
+        if (path.equals("/games") || path.equals("/games/")) {
+            requireMethod(method, "POST");
+
+            int gridSize = Integer.parseInt(queryValue(query, "size", "4"));
+            if (gridSize < 2 || gridSize > MAX_GRID_SIZE)
+                throw new IllegalArgumentException("Grid size must be from 2 to " + MAX_GRID_SIZE);
+
+            return sessions.create(gridSize, (id, session) -> describe(session, null).put("id", id));
+        }
+
+        // parts is ["", "games", id] or ["", "games", id, action] or ["", "games", id, "move", direction]
+        if (parts.length < 3 || parts.length > 5 || !parts[1].equals("games")) return null;
+        String id = parts[2];
+
+        if (parts.length == 3) {
+            requireMethod(method, "GET");
+            return sessions.update(id, session -> describe(session, null));
+        }
+
+        requireMethod(method, "POST");
+        String action = parts[3];
+        if (parts.length == 5 && !action.equals("move")) return null;
+
+        return switch (action) {
+            case "move" -> {
+                if (parts.length != 5) throw new IllegalArgumentException("Missing direction");
+
+                Direction direction = Direction.fromString(parts[4]);
+                yield sessions.update(id, session -> {
+                    MoveResult result = session.move(direction);
+                    return result != null ? describe(session, result) : describe(session, null).put("moved", false);
+                });
+            }
+            case "undo" -> sessions.update(id, session -> describe(session, null).put("restored", session.undo()));
+            case "redo" -> sessions.update(id, session -> describe(session, null).put("restored", session.redo()));
+            case "restart" -> sessions.update(id, session -> {
+                session.restart();
+                return describe(session, null);
+            });
+            default -> null;
+        };
+    }
+
+    /**
+     * A method to describe the state of a game.
+     *
+     * @param session The game to describe
+     * @param result The result of the move just made, or null if no move was made
+     * @return the game's state
+     */
+    private static JSONObject describe(GameSession session, MoveResult result) {
+        BoardState board = session.getBoard();
+        int cells = board.getGridSize() * board.getGridSize();
+        JSONArray exponents = new JSONArray();
+
+        for (int cell = 0; cell < cells; cell++) exponents.put(board.getExponent(cell));
+
+        JSONObject state = new JSONObject()
+            .put("gridSize", board.getGridSize())
+            .put("exponents", exponents)
+            .put("score", board.getScore())
+            .put("highScore", board.getHighScore())
+            .put("scoreCapped", BoardState.isCapped(board.getScore()))
+            .put("hasWon", board.getHasWon())
+            .put("gameOver", board.isGameOver());
+
+        if (result != null) {
+            state.put("moved", true)
+                .put("scoreDelta", result.getScoreDelta())
+                .put("merges", result.getMergeCount());
+        }
+
+        return state;
+    }
+
+    /**
+     * A method to describe the requests served and the sessions held.
+     *
+     * @return the statistics
+     */
+    private JSONObject stats() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        return new JSONObject()
+            .put("requests", requests.get())
+            .put("requestsPerSecond", requests.get() / seconds)
+            .put("p50Millis", latencies.getValueAtPercentile(50) / 1e6)
+            .put("p99Millis", latencies.getValueAtPercentile(99) / 1e6)
+            .put("maxMillis", latencies.getMax() / 1e6)
+            .put("sessionsInMemory", sessions.size())
+            .put("evictions", sessions.getEvictions())
+            .put("loads", sessions.getLoads());
+    }
+
+    /**
+     * A method to print the request rate and latency percentiles since the latest report.
+     */
+    private void report() {
+        LatencyHistogram interval = intervalLatencies.getAndSet(new LatencyHistogram());
+
+        System.out.printf("%.1f req/s, p50 %.2f ms, p99 %.2f ms, %d sessions in memory, %d evictions%n",
+            (double) interval.getCount() / REPORT_INTERVAL_SECONDS,
+            interval.getValueAtPercentile(50) / 1e6, interval.getValueAtPercentile(99) / 1e6,
+            sessions.size(), sessions.getEvictions());
+    }
+
+    /**
+     * A method to check that a request uses the method its path allows.
+     *
+     * @param method The request's HTTP method
+     * @param allowed The method the path allows
+     * @throws UnsupportedOperationException If the methods do not match
+     */
+    private static void requireMethod(String method, String allowed) {
+        if (!method.equals(allowed))
+            throw new UnsupportedOperationException("Method not allowed, use " + allowed);
+    }
+
+    /**
+     * A method to create an error response.
+     *
+     * @param message The error's message
+     * @return the response
+     */
+    private static JSONObject error(String message) {
+        return new JSONObject().put("error", message);
+    }
+
+    /**
+     * Gets the value of a parameter in a query string.
+     *
+     * @param query The query string, or null if there is none
+     * @param name The name of the parameter
+     * @param defaultValue The value to use if the parameter is missing
+     * @return the parameter's value
+     */
+    private static String queryValue(String query, String name, String defaultValue) {
+        if (query == null) return defaultValue;
+
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator != -1 && parameter.substring(0, separator).equals(name)) return parameter.substring(separator + 1);
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * The method to run the game server.
+     *
+     * @param args The port, the number of sessions kept in memory and the undo limit of each session
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8048;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int undoLimit = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        GameServer gameServer = new GameServer(port, new SessionStore(capacity, undoLimit));
+        Runtime.getRuntime().addShutdownHook(new Thread(gameServer::stop, "server-shutdown"));
+        gameServer.start();
+
+        System.out.printf("Serving games on port %d, keeping up to %d sessions in memory%n", port, capacity);
+    }
+}
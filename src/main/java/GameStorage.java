@@ -1,24 +1,78 @@
+import core.BoardState;
+import core.GameEngine;
+import core.JournalReplay;
+import core.MoveJournal;
+import core.SaveFormat;
 import org.json.JSONObject;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
- * A class to provide methods to access game saves.
+ * A class to provide methods to access game saves. <br>
+ * Saves are written in the binary {@link SaveFormat} by a single background thread, so saving does not block the JavaFX thread.
+ * Saves of the same grid size made before the thread gets to them are combined into one write.
+ * A save that cannot be written is kept and written again by the next save of its grid or the next {@link #flush()}.
+ * JSON saves from older versions are migrated when they are loaded, and JSON can still be imported and exported. <br>
+ * Between saves, every change to a game is appended to its {@link MoveJournal}, which is replayed when the game is loaded.
+ * The journal starts again from the saved board each time a save is written, keeping the changes made since the save. <br>
+ * The games of the {@link GameServer} are saved by session id through the same thread, without journals.
  *
  * @author Evan Razzaque
  */
 public abstract class GameStorage {
     /** A format string used to the path of a grid save, where '%d' is the gridSize **/
-    private static final String SAVE_FILE_TEMPLATE = "SaveData/grid%d.json";
+    private static final String SAVE_FILE_TEMPLATE = "SaveData/grid%d.sav";
+
+    /** A format string used to the path of a JSON grid save from older versions, where '%d' is the gridSize **/
+    private static final String JSON_FILE_TEMPLATE = "SaveData/grid%d.json";
+
+    /** A format string used to the path of a grid's move journal, where '%d' is the gridSize **/
+    private static final String JOURNAL_FILE_TEMPLATE = "SaveData/grid%d.journal";
+
+    /** A format string used to the path of a server session's save, where '%s' is the session's id **/
+    private static final String SESSION_FILE_TEMPLATE = "SaveData/sessions/%s.sav";
 
     /** The path to save the grid data to **/
     private static final String SAVE_FOLDER_PATH = SAVE_FILE_TEMPLATE.substring(0, SAVE_FILE_TEMPLATE.indexOf('/') + 1);
 
-    /** The file to save the game data to **/
-    private static File saveFile;
+    /** The latest save data of each save file that has not been written yet **/
+    private static final ConcurrentHashMap<Path, ByteBuffer> pendingSaves = new ConcurrentHashMap<>();
+
+    /** The save files whose latest write failed, and that no write is scheduled for **/
+    private static final Set<Path> failedSaves = ConcurrentHashMap.newKeySet();
+
+    /** The latest write scheduled for each save or journal file that has not finished yet **/
+    private static final ConcurrentHashMap<Path, Future<?>> latestWrites = new ConcurrentHashMap<>();
+
+    /** The journal of each grid save, which is started again from the save once it has been written **/
+    private static final ConcurrentHashMap<Path, MoveJournal> saveJournals = new ConcurrentHashMap<>();
+
+    /** The error of the latest write that failed **/
+    private static volatile Throwable writeError;
+
+    /** The thread that writes the saves **/
+    private static final ExecutorService saveWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "save-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * A method to check if a save file exists for a particular grid.
@@ -27,59 +81,398 @@ public abstract class GameStorage {
      * @return whether the save exists or not
      */
     public static boolean saveExists(int gridSize) {
-        return Files.exists(Path.of(SAVE_FILE_TEMPLATE.formatted(gridSize)));
+        return pendingSaves.containsKey(Path.of(SAVE_FILE_TEMPLATE.formatted(gridSize)))
+            || Files.exists(Path.of(JOURNAL_FILE_TEMPLATE.formatted(gridSize)))
+            || Files.exists(Path.of(SAVE_FILE_TEMPLATE.formatted(gridSize)))
+            || Files.exists(Path.of(JSON_FILE_TEMPLATE.formatted(gridSize)));
     }
 
     /**
-     * A method to load the grid's state.
+     * A method to load the grid's state into a board. <br>
+     * The grid's journal is replayed if it is valid, since it is newer than the save file.
+     * A JSON save is converted to a binary save, and the board is left as it is if no save exists.
+     * Loads are made one at a time, since {@link GridPreviews} loads saves in the background.
      *
      * @param gridSize The size of the grid to load
-     * @return grid state JSON object
+     * @param board The board to load into
      */
-    public static JSONObject load(int gridSize) {
+    public static synchronized void load(int gridSize, BoardState board) {
         // Creates SaveData directory if it doesn't exist
         new File(SAVE_FOLDER_PATH).mkdirs();
-        saveFile = new File(SAVE_FILE_TEMPLATE.formatted(gridSize));
+        Path savePath = Path.of(SAVE_FILE_TEMPLATE.formatted(gridSize));
+        Path jsonPath = Path.of(JSON_FILE_TEMPLATE.formatted(gridSize));
+        Path journalPath = Path.of(JOURNAL_FILE_TEMPLATE.formatted(gridSize));
 
-        JSONObject gridData;
+        // Waits for this grid's journal and save to be written, without waiting for other grid sizes
+        awaitWrites(journalPath);
+        awaitWrites(savePath);
 
         try {
-            if (!saveFile.exists()) {
-                saveFile.createNewFile();
+            // A save that could not be written is newer than the save file
+            ByteBuffer unwritten = pendingSaves.get(savePath);
 
-                Files.writeString(Path.of(saveFile.getPath()), """
-                    {"grid": "%s", "highScore": 0, "score": 0, "numberCount": 0, "hasWon": false, "gameContinued": false}
-                """.formatted("_".repeat((int) Math.pow(gridSize, 2))));
+            if (Files.exists(journalPath) && replayJournal(journalPath, board)) {
+                return;
+            } else if (unwritten != null) {
+                SaveFormat.decode(unwritten.duplicate(), board);
+            } else if (Files.exists(savePath)) {
+                SaveFormat.decode(ByteBuffer.wrap(Files.readAllBytes(savePath)), board);
+            } else if (Files.exists(jsonPath)) {
+                importJson(jsonPath, board);
+                write(savePath, SaveFormat.encode(board));
+                Files.delete(jsonPath);
             }
-
-            gridData = new JSONObject(Files.readString(saveFile.toPath()));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-
-        return gridData;
     }
 
     /**
-     * A method to save a grid's state to its save file.
+     * A method to save a grid's state to its save file, starting its journal again from the save once it is written.
      *
      * @param grid The grid object to save
      */
     public static void save(Grid grid) {
-        saveFile = new File(SAVE_FILE_TEMPLATE.formatted(grid.getGridSize()));
+        int gridSize = grid.getGridSize();
+        Path savePath = Path.of(SAVE_FILE_TEMPLATE.formatted(gridSize));
+        ByteBuffer saveData = SaveFormat.encode(grid.getBoard());
+        GridPreviews.update(gridSize, saveData);
+
+        // Marks the journal before queueing the save, so the journal knows where the save was made before it is written
+        MoveJournal journal = grid.journal();
+        journal.markSave(saveData);
+        saveJournals.put(savePath, journal);
+
+        queueSave(savePath, saveData);
+    }
+
+    /**
+     * A method to wait until every save and journal record has been written, trying failed saves again.
+     *
+     * @throws RuntimeException If a save still could not be written, which is kept to be written later
+     */
+    public static void flush() {
+        for (Path path : failedSaves) {
+            if (failedSaves.remove(path)) scheduleWrite(path, () -> writePendingSave(path));
+        }
+
+        try {
+            // Every waiting save has a write scheduled unless its latest write failed
+            do {
+                saveWriter.submit(() -> {}).get();
+            } while (!failedSaves.containsAll(pendingSaves.keySet()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (!pendingSaves.isEmpty())
+            throw new RuntimeException("%d save(s) could not be written".formatted(pendingSaves.size()), writeError);
+    }
+
+    /**
+     * A method to save a server session's board in the background. <br>
+     * Saves of the same session made before the save thread gets to them are combined into one write.
+     *
+     * @param id The session's id, which must be safe to use as a file name
+     * @param board The board to save
+     */
+    public static void saveSession(String id, BoardState board) {
+        queueSave(Path.of(SESSION_FILE_TEMPLATE.formatted(id)), SaveFormat.encode(board));
+    }
+
+    /**
+     * A method to load a server session's board, including a save that has not been written yet.
+     *
+     * @param id The session's id, which must be safe to use as a file name
+     * @return the session's board, or null if the session has no save
+     */
+    public static BoardState loadSession(String id) {
+        try {
+            // The pending save is checked first, since it is only removed once it has been written
+            Path savePath = Path.of(SESSION_FILE_TEMPLATE.formatted(id));
+            ByteBuffer saveData = pendingSaves.get(savePath);
+
+            if (saveData == null) {
+                if (!Files.exists(savePath)) return null;
+
+                saveData = ByteBuffer.wrap(Files.readAllBytes(savePath));
+            }
+
+            BoardState board = new BoardState(SaveFormat.readGridSize(saveData.duplicate()));
+            SaveFormat.decode(saveData.duplicate(), board);
+
+            return board;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A method to start a new journal for a game, seeding the engine's random number generator from it.
+     *
+     * @param board The board the game starts from
+     * @param engine The engine the game is played with
+     * @return the journal
+     */
+    public static MoveJournal createJournal(BoardState board, GameEngine engine) {
+        long seed = new SplittableRandom().nextLong();
+        engine.setRandom(new SplittableRandom(seed));
+
+        Path journalPath = Path.of(JOURNAL_FILE_TEMPLATE.formatted(board.getGridSize()));
+
+        return MoveJournal.create(journalPath, board, seed, journalWriter(journalPath));
+    }
+
+    /**
+     * A method to continue a game's journal, or to start one if the game has no valid journal.
+     *
+     * @param board The board the game is at
+     * @param engine The engine the game is played with
+     * @return the journal
+     */
+    public static MoveJournal openJournal(BoardState board, GameEngine engine) {
+        Path journalPath = Path.of(JOURNAL_FILE_TEMPLATE.formatted(board.getGridSize()));
+        awaitWrites(journalPath);
+
+        if (!Files.exists(journalPath)) return createJournal(board, engine);
+
+        MoveJournal journal;
+        try {
+            journal = MoveJournal.open(journalPath, journalWriter(journalPath));
+        } catch (IllegalArgumentException e) {
+            return createJournal(board, engine);
+        }
+
+        // Continues the game's random numbers from a seed derived from the journal
+        engine.setRandom(new SplittableRandom(journal.getSeed() + journal.getMoveCount()));
+        journal.recordRestore(board);
+
+        return journal;
+    }
+
+    /**
+     * A method to read a grid's journal so that it can be verified or replayed to any move.
+     *
+     * @param gridSize The size of the grid
+     * @return the journal's replay, or null if the grid has no journal
+     * @throws IllegalArgumentException If the file is not a valid journal
+     */
+    public static JournalReplay readJournal(int gridSize) {
+        Path journalPath = Path.of(JOURNAL_FILE_TEMPLATE.formatted(gridSize));
+        awaitWrites(journalPath);
+
+        try {
+            if (!Files.exists(journalPath)) return null;
+
+            return new JournalReplay(ByteBuffer.wrap(Files.readAllBytes(journalPath)));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A method to reconstruct a board from a journal.
+     *
+     * @param path The journal file
+     * @param board The board to reconstruct into
+     * @return whether the journal was valid
+     * @throws IOException If the journal could not be read
+     */
+    private static boolean replayJournal(Path path, BoardState board) throws IOException {
+        try {
+            JournalReplay replay = new JournalReplay(ByteBuffer.wrap(Files.readAllBytes(path)));
+            if (replay.getGridSize() != board.getGridSize()) return false;
+
+            replay.replay(board);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        return true;
+    }
 
+    /**
+     * A method to load a board from a JSON save.
+     *
+     * @param path The JSON file to read
+     * @param board The board to load into
+     */
+    public static void importJson(Path path, BoardState board) {
+        JSONObject gridData;
+
+        try {
+            gridData = new JSONObject(Files.readString(path));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        board.load(gridData.getString("grid"));
+        board.setHighScore(gridData.getLong("highScore"));
+        board.setScore(gridData.getLong("score"));
+        board.setHasWon(gridData.getBoolean("hasWon"));
+        board.setGameContinued(gridData.getBoolean("gameContinued"));
+    }
+
+    /**
+     * A method to save a board as JSON.
+     *
+     * @param board The board to save
+     * @param path The JSON file to write
+     */
+    public static void exportJson(BoardState board, Path path) {
         JSONObject gridData = new JSONObject()
-            .put("grid", grid)
-            .put("highScore", grid.getHighScore())
-            .put("score", grid.getScore())
-            .put("numberCount", grid.getNumberCount())
-            .put("hasWon", grid.getHasWon())
-            .put("gameContinued", grid.isGameContinued());
+            .put("grid", board.toString())
+            .put("highScore", board.getHighScore())
+            .put("score", board.getScore())
+            .put("numberCount", board.getNumberCount())
+            .put("hasWon", board.getHasWon())
+            .put("gameContinued", board.isGameContinued());
 
         try {
-            Files.writeString(saveFile.toPath(), gridData.toString());
+            write(path, ByteBuffer.wrap(gridData.toString().getBytes(StandardCharsets.UTF_8)));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the executor a journal's records are written with, which runs them on the save thread.
+     *
+     * @param journalPath The journal file
+     * @return the executor
+     */
+    private static Executor journalWriter(Path journalPath) {
+        return task -> scheduleWrite(journalPath, task);
+    }
+
+    /**
+     * A method to store the latest save data of a save file and write it in the background. <br>
+     * A write is only scheduled if one is not already waiting for the file, or if the file's latest write failed.
+     *
+     * @param path The save file
+     * @param saveData The save data to write
+     */
+    private static void queueSave(Path path, ByteBuffer saveData) {
+        if (pendingSaves.put(path, saveData) == null || failedSaves.remove(path))
+            scheduleWrite(path, () -> writePendingSave(path));
+    }
+
+    /**
+     * A method to run a write to a file on the save thread, keeping track of it so that loads can wait for it.
+     *
+     * @param path The file being written
+     * @param task The write to run
+     */
+    private static void scheduleWrite(Path path, Runnable task) {
+        FutureTask<Void> write = new FutureTask<>(task, null);
+
+        // Schedules the write while holding the file's entry, so the latest write recorded is also the latest to run
+        latestWrites.compute(path, (key, previous) -> {
+            saveWriter.execute(() -> {
+                write.run();
+
+                if (write.state() == Future.State.FAILED) reportWriteError(path, write.exceptionNow());
+                latestWrites.remove(path, write);
+            });
+
+            return write;
+        });
+    }
+
+    /**
+     * A method to wait until every write scheduled for a file has finished.
+     *
+     * @param path The file being written
+     */
+    private static void awaitWrites(Path path) {
+        Future<?> write;
+
+        // A write may schedule another write to the file, which is recorded before the first write finishes
+        while ((write = latestWrites.get(path)) != null && !write.isDone()) {
+            try {
+                write.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // Already reported by the save thread
+            }
+        }
+    }
+
+    /**
+     * A method to write the latest save data of a save file. <br>
+     * If the write fails, the save data is kept so that the next save of the file or the next flush writes it.
+     *
+     * @param path The save file
+     */
+    private static void writePendingSave(Path path) {
+        ByteBuffer saveData = pendingSaves.get(path);
+        if (saveData == null) return;
+
+        GameEvents.Save event = new GameEvents.Save();
+        event.begin();
+
+        try {
+            Files.createDirectories(path.getParent());
+            write(path, saveData.duplicate());
+        } catch (IOException e) {
+            reportWriteError(path, e);
+            failedSaves.add(path);
+
+            // A newer save made during the write is written next, unless the newer save already scheduled it
+            if (pendingSaves.get(path) != saveData && failedSaves.remove(path))
+                scheduleWrite(path, () -> writePendingSave(path));
+
+            return;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.gridSize = SaveFormat.readGridSize(saveData.duplicate());
+            event.bytes = saveData.remaining();
+            event.commit();
+        }
+
+        // Starts the grid's journal again from the save that was written
+        MoveJournal journal = saveJournals.get(path);
+        if (journal != null) journal.restartFromSave(saveData);
+
+        // A newer save made during the write is written next
+        if (!pendingSaves.remove(path, saveData)) scheduleWrite(path, () -> writePendingSave(path));
+    }
+
+    /**
+     * A method to record and print an error from writing a file.
+     *
+     * @param path The file that could not be written
+     * @param error The error
+     */
+    private static void reportWriteError(Path path, Throwable error) {
+        writeError = error;
+        System.err.println("Could not write " + path + ": " + error);
+    }
+
+    /**
+     * A method to replace a file's contents by writing them to a temporary file and then renaming it,
+     * so the file is never left partially written. <br>
+     * The temporary file is forced to disk before the rename, so a crash cannot leave the file renamed but empty.
+     *
+     * @param path The file to write to
+     * @param contents The contents to write
+     * @throws IOException If the file could not be written
+     */
+    private static void write(Path path, ByteBuffer contents) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tempPath,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (contents.hasRemaining()) channel.write(contents);
+            channel.force(true);
+        }
+
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
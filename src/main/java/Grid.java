@@ -1,3 +1,10 @@
+import core.BoardState;
+import core.Direction;
+import core.GameEngine;
+import core.LatencyHistogram;
+import core.MoveJournal;
+import core.MoveResult;
+import core.UndoHistory;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
@@ -5,16 +12,11 @@ import javafx.geometry.VPos;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
-import javafx.scene.paint.Color;
-import javafx.scene.paint.Paint;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 import javafx.scene.text.TextAlignment;
 import javafx.util.Duration;
-import org.json.JSONObject;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -24,6 +26,11 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @author Evan Razzaque
  */
 public class Grid {
+    /**
+     * The largest grid size a game can be started with
+     */
+    public static final int MAX_GRID_SIZE = 1024;
+
     /**
      * The size of the grid
      */
@@ -35,84 +42,109 @@ public class Grid {
     private double cellSize;
 
     /**
-     * A 2D array containing the numbers for the grid
+     * The numbers, score and state of the game
      */
-    private long[][] numberGrid;
+    private BoardState board;
 
     /**
-     * An array to store whether a cell has been combined or not while performing a move
+     * The engine used to perform moves on the board
      */
-    private boolean[][] combinedStateGrid;
+    private GameEngine engine;
 
     /**
-     * Used to store grid number objects for animating tile movement
+     * The tiles of the grid with their previous positions, used for animating tile movement
      */
-    private ArrayList<GridNumber> gridNumbers;
+    private TileStore tiles;
 
     /**
-     * Used to stores previous grid states to allow the player to undo moves
+     * Used to stores previous grid states to allow the player to undo and redo moves
      */
-    private ArrayList<long[][]> previousGridStates;
+    private UndoHistory history;
 
     /**
-     * Stores the number count for each previous grid state
+     * The journal every change to the game is recorded in, or null until the game first changes
+     */
+    private MoveJournal journal;
+
+    /**
+     * The maximum amount of moves the player can undo
      */
-    private ArrayList<Integer> previousNumberCounts;
+    private final int UNDO_LIMIT;
 
     /**
-     * Stores the score for each previous grid state
+     * The {@link GraphicsContext} instance to use to render the grid
      */
-    private ArrayList<Long> previousScores;
+    private final GraphicsContext GC;
 
     /**
-     * The number tiles each number moves while the player performs an action
+     * The pre-rendered images of the tiles at the current cell size
      */
-    private int moveCount;
+    private final TileSprites sprites = new TileSprites();
 
     /**
-     * The number of number tiles on the grid
+     * The exponent drawn in each cell when the grid was last rendered, or -1 if the cell must be redrawn
      */
-    private int numberCount;
+    private byte[] drawnExponents;
 
     /**
-     * The current score for the game
+     * Whether each cell has been cleared during the current animation frame
      */
-    private long score;
+    private boolean[] dirtyCells;
 
     /**
-     * The high score for the game and grid size
+     * The time (in nanoseconds) taken to render each frame
      */
-    private long highScore;
+    private final LatencyHistogram frameTimes = new LatencyHistogram();
 
     /**
-     * Whether the player has reached the 2048 tile or not
+     * The time (in nanoseconds) from each move until the grid is rendered with its added number
      */
-    private boolean hasWon;
+    private final LatencyHistogram inputLatencies = new LatencyHistogram();
 
     /**
-     * Whether the player decided to continue the game after reach 2048
+     * When the latest move started (from {@link System#nanoTime()}), or 0 once it has been rendered
      */
-    private boolean gameContinued;
+    private long moveStartNanos;
 
     /**
-     * The maximum amount of moves the player can undo
+     * The number of moves made
      */
-    private final int UNDO_LIMIT;
+    private long moveCount;
 
     /**
-     * The {@link GraphicsContext} instance to use to render the grid
+     * The number of animation frames skipped because the grid was rendered before the animation finished
      */
-    private final GraphicsContext GC;
+    private long droppedFrames;
 
     /**
-     * A hashmap mapping tile numbers to background colors for a tile
+     * The number of frames rendered of the current animation
      */
-    private static final HashMap<Long, Paint> COLORS = GameAssets.getColors();
+    private int animationFrames;
 
     /**
-     * Prefixes for displaying large numbers on a tile
+     * Whether the numbers are being animated
      */
-    private static final char[] PREFIXES = new char[] {'K', 'M', 'B', 'T', 'q', 'Q', 's', 'S'};
+    private boolean animating;
+
+    /**
+     * The number of moves that can wait for the current move to finish before the animations are skipped
+     */
+    private static final int MAX_QUEUED_MOVES = 2;
+
+    /**
+     * The number of frames each move is animated with
+     */
+    private static final int ANIMATION_FRAMES = 20;
+
+    /**
+     * The moves made while the current move was still animating, in the order they were made
+     */
+    private final ArrayDeque<Direction> queuedMoves = new ArrayDeque<>(MAX_QUEUED_MOVES);
+
+    /**
+     * Whether a move is animating and has not had its number added yet
+     */
+    private boolean moveInFlight;
 
     /**
      * The render timeline used to animate the tiles moving
@@ -149,58 +181,77 @@ public class Grid {
 
     /**
      * A method to load the grid's state from its save file. <br>
-     * A new file will be created if none exists.
-     * @see GameStorage#load(int)
+     * The grid is left empty if no save exists.
+     * @see GameStorage#load(int, BoardState)
      */
     public void load() {
-        JSONObject gridData = GameStorage.load(gridSize);
-
-        char[] numbers = gridData.getString("grid").toCharArray();
-
-        for (int row = 0; row < gridSize; row++) {
-            for (int col = 0; col < gridSize; col++) {
-                if (numbers[row * gridSize + col] == '_') continue;
-                numberGrid[row][col] = (long) (Math.pow(2, numbers[row * gridSize + col] - 32));
-            }
-        }
-
-        highScore = gridData.getLong("highScore");
-        score = gridData.getLong("score");
-        numberCount = gridData.getInt("numberCount");
-        hasWon = gridData.getBoolean("hasWon");
-        gameContinued = gridData.getBoolean("gameContinued");
+        GameStorage.load(gridSize, board);
     }
 
     /**
      * A method to start the game with a given grid size.
      *
-     * @param gridSize The size of the grid
+     * @param gridSize The size of the grid, from 2 to {@link #MAX_GRID_SIZE}
      */
     public void startGame(int gridSize) {
         if (gridSize < 2)
             throw new IllegalArgumentException("Grid size cannot be less than 2");
+        if (gridSize > MAX_GRID_SIZE)
+            throw new IllegalArgumentException("Grid size cannot be greater than " + MAX_GRID_SIZE);
+
+        closeJournal();
 
         this.gridSize = gridSize;
         cellSize = GC.getCanvas().getWidth() / gridSize;
-        numberGrid = new long[gridSize][gridSize];
-        gridNumbers = new ArrayList<>();
-        previousGridStates = new ArrayList<>();
-        previousNumberCounts = new ArrayList<>();
-        previousScores = new ArrayList<>();
+        sprites.setCellSize(cellSize);
+        board = new BoardState(gridSize);
+        engine = new GameEngine(gridSize);
+        tiles = new TileStore(gridSize);
+        history = new UndoHistory(gridSize, UNDO_LIMIT);
+        drawnExponents = new byte[gridSize * gridSize];
+        dirtyCells = new boolean[gridSize * gridSize];
+
+        // Nothing has been drawn for the new grid yet
+        Arrays.fill(drawnExponents, (byte) -1);
+        GC.clearRect(0, 0, GC.getCanvas().getWidth(), GC.getCanvas().getHeight());
 
         load();
 
-        if (numberCount == 0) {
+        if (board.getNumberCount() == 0) {
+            journal = GameStorage.createJournal(board, engine);
             addNumber();
             addNumber();
 
             GameStorage.save(this);
         }
 
-        setGridNumbers();
+        history.reset(board);
+        setTiles();
         renderGrid();
     }
 
+    /**
+     * Gets the game's journal, continuing the game's existing journal the first time it is needed. <br>
+     * The journal continues from the current board, so it must be opened before the board is changed.
+     *
+     * @return the journal
+     */
+    MoveJournal journal() {
+        if (journal == null) journal = GameStorage.openJournal(board, engine);
+
+        return journal;
+    }
+
+    /**
+     * A method to write the game's journal and close it.
+     */
+    public void closeJournal() {
+        if (journal == null) return;
+
+        journal.close();
+        journal = null;
+    }
+
     /**
      * A method to start the game with the same grid size.
      */
@@ -217,6 +268,51 @@ public class Grid {
         return gridSize;
     }
 
+    /**
+     * Gets the cache of pre-rendered tile images.
+     *
+     * @return the tile sprites
+     */
+    public TileSprites getSprites() {
+        return sprites;
+    }
+
+    /**
+     * Gets the time taken to render each frame.
+     *
+     * @return the histogram of frame times in nanoseconds
+     */
+    public LatencyHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    /**
+     * Gets the time from each move until the grid is rendered with its added number.
+     *
+     * @return the histogram of input latencies in nanoseconds
+     */
+    public LatencyHistogram getInputLatencies() {
+        return inputLatencies;
+    }
+
+    /**
+     * Gets the number of moves made.
+     *
+     * @return the number of moves
+     */
+    public long getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets the number of animation frames skipped because the grid was rendered before the animation finished.
+     *
+     * @return the number of dropped frames
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
     /**
      * Gets the cells' size.
      *
@@ -241,7 +337,7 @@ public class Grid {
      * @return the amount of numbers
      */
     public int getNumberCount() {
-        return numberCount;
+        return board.getNumberCount();
     }
 
     /**
@@ -250,7 +346,7 @@ public class Grid {
      * @return the current score
      */
     public long getScore() {
-        return score;
+        return board.getScore();
     }
 
     /**
@@ -259,7 +355,7 @@ public class Grid {
      * @return the highscore for the grid size
      */
     public long getHighScore() {
-        return highScore;
+        return board.getHighScore();
     }
 
     /**
@@ -268,7 +364,7 @@ public class Grid {
      * @return whether the player has won or not
      */
     public boolean getHasWon() {
-        return hasWon;
+        return board.getHasWon();
     }
 
     /**
@@ -277,196 +373,304 @@ public class Grid {
      * @return whether the game is continued or not
      */
     public boolean isGameContinued() {
-        return gameContinued;
+        return board.isGameContinued();
     }
 
     /**
-     * A method to set the values in the grid numbers arraylist.
+     * Gets the board holding the numbers and state of the game.
+     *
+     * @return the board of the game
      */
-    public void setGridNumbers() {
-        gridNumbers.clear();
+    public BoardState getBoard() {
+        return board;
+    }
 
-        long value;
+    /**
+     * A method to set the tiles to the numbers on the board, with none of them moving.
+     */
+    public void setTiles() {
+        tiles.clear();
+
+        int exponent;
         for (int row = 0; row < gridSize; row++) {
             for (int col = 0; col < gridSize; col++) {
-                value = numberGrid[row][col];
-                if (value > 0) gridNumbers.add(new GridNumber(row, col, value));
+                exponent = board.getExponent(row * gridSize + col);
+                if (exponent > 0) tiles.add(row, col, exponent);
             }
         }
     }
 
+    /**
+     * A method to set the tiles to the tiles moved by a move.
+     *
+     * @param result The result of the move
+     */
+    private void setTiles(MoveResult result) {
+        tiles.clear();
+
+        int from, to;
+        for (int i = 0; i < result.getTileCount(); i++) {
+            from = result.getFrom(i);
+            to = result.getTo(i);
+
+            tiles.add(from / gridSize, from % gridSize, to / gridSize, to % gridSize,
+                result.getExponent(i), board.getExponent(to));
+        }
+    }
+
     /**
      * A method to add a number tile on the grid.
      *
      * @param col Grid column
      * @param row Grid row
-     * @param value The value of tile
+     * @param exponent The exponent of the tile's number
      */
-    public void addNumber(int col, int row, long value) {
-        numberGrid[row][col] = value;
-        gridNumbers.add(new GridNumber(row, col, value));
-        numberCount++;
+    public void addNumber(int col, int row, int exponent) {
+        board.setExponent(row * gridSize + col, exponent);
+        setTiles();
     }
 
     /**
      * A method to add a number tile with a random location and
-     * with a value of 2 or 4.
+     * with a value of 2 or 4. <br>
+     * The tiles are not changed, so they must be set from the board before the grid is rendered.
      */
     public void addNumber() {
-        int randRow, randCol;
-        int randInt = (int) (1 + Math.random() * 100);
+        GameEvents.Spawn event = new GameEvents.Spawn();
+        event.begin();
 
-        int value = 2;
-        if (randInt <= 10) value = 4;
+        int cell = engine.spawn(board);
 
-        while (true) {
-            randRow = (int) (Math.random() * gridSize);
-            randCol = (int) (Math.random() * gridSize);
+        event.end();
+        if (event.shouldCommit()) {
+            event.cell = cell;
+            event.commit();
+        }
 
-            if (numberGrid[randRow][randCol] == 0) {
-                addNumber(randCol, randRow, value);
-                break;
-            }
+        if (cell == -1) return;
+
+        journal().recordSpawn(board, cell);
+    }
+
+    /**
+     * A method to move the numbers in a given direction.
+     *
+     * @param direction The direction to move the tile in
+     */
+    public void move(String direction) {
+        move(Direction.fromString(direction));
+    }
+
+    /**
+     * A method to move the numbers in a given direction. <br>
+     * A move made while the previous move is animating waits for it to finish. Once too many moves are waiting,
+     * the waiting moves are applied straight away without animating, and only the latest one is animated.
+     *
+     * @param direction The direction to move the tile in
+     */
+    public void move(Direction direction) {
+        if (!moveInFlight) {
+            startMove(direction);
+            return;
         }
+
+        queuedMoves.add(direction);
+        if (queuedMoves.size() < MAX_QUEUED_MOVES) return;
+
+        // Skips the animations of every waiting move except the latest one
+        finishMove(false);
+        applyQueuedMoves(1);
+        setTiles();
+        renderGrid();
+
+        if (checkGameEnd()) queuedMoves.clear();
+        else if (!queuedMoves.isEmpty()) startMove(queuedMoves.poll());
     }
 
     /**
-     * A method to move an individual number across the grid.
+     * A method to move the numbers and animate them moving.
      *
-     * @param r1 The number's row on the grid
-     * @param c1 The number's column on the grid
-     * @param d The direction (x, y) to number
+     * @param direction The direction to move the numbers in
      */
-    public void moveNumber(int r1, int c1, int[] d) {
-        long value = numberGrid[r1][c1];
-        if (value == 0) return;
+    private void startMove(Direction direction) {
+        MoveResult result = applyMove(direction);
+        if (result == null) return;
 
-        // Target cell
-        int r2 = r1 + d[0];
-        int c2 = c1 + d[1];
+        moveInFlight = true;
+        setTiles(result);
+        render();
+    }
 
-        // Calculates the amount of moves an individual number can move in a given direction
-        int moves = (int) (Math.abs(r1 - (gridSize - 1) * Math.signum(d[0] + 1)) * Math.abs(d[0]) + Math.abs(c1 - (gridSize - 1) * Math.signum(d[1] + 1)) * Math.abs(d[1]));
+    /**
+     * A method to move the numbers without animating them.
+     *
+     * @param direction The direction to move the numbers in
+     * @return the result of the move, or null if the move cannot be made
+     */
+    private MoveResult applyMove(Direction direction) {
+        if (!engine.canMove(board, direction)) return null;
+
+        GameEvents.Move event = new GameEvents.Move();
+        moveStartNanos = System.nanoTime();
+        moveCount++;
+        event.begin();
+
+        // Opens the journal before the board changes, so it continues from the board the move is made on
+        MoveJournal moves = journal();
+        history.push(board);
+        MoveResult result = engine.move(board, direction);
+        moves.recordMove(direction);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.direction = direction.name();
+            event.gridSize = gridSize;
+            event.tiles = result.getTileCount();
+            event.commit();
+        }
 
-        int combineCount = 0;
+        return result;
+    }
 
-        for (int i = 0; i < moves; i++) {
-            // If a number has reached another number with a different value, the number has already combined with
-            // another number, or the target cell has already had a combination occur
-            if (numberGrid[r2][c2] != value && numberGrid[r2][c2] != 0 || combinedStateGrid[r2][c2] || combineCount > 0)
-                break;
+    /**
+     * A method to finish the animating move by adding its number and rendering the grid,
+     * then to start the next waiting move.
+     */
+    public void finishMove() {
+        finishMove(true);
+    }
 
-            // Saving previous grid state
-            if (moveCount == 0) {
-                if (getPlayableMoves() > 0) storeGridState();
+    /**
+     * A method to finish the animating move by adding its number and rendering the grid.
+     *
+     * @param playNext Whether to start the next waiting move, or to show the game over or win dialog
+     */
+    private void finishMove(boolean playNext) {
+        if (!moveInFlight) return;
 
-                for (GridNumber n : gridNumbers) {
-                    n.setOldPos();
-                    n.setOldValue();
-                }
-            }
+        renderTimeline.stop();
+        moveInFlight = false;
 
-            // Combining numbers
-            if (numberGrid[r2][c2] == value) {
-                value += value;
-                combineCount++;
-                combinedStateGrid[r2][c2] = true;
-                numberCount--;
-                score += value;
+        addNumber();
+        setTiles();
+        renderGrid();
 
-                if (score > highScore) highScore = score;
-            }
+        if (!playNext) return;
 
-            // Moving the numbers
-            numberGrid[r2][c2] = value;
-            numberGrid[r1][c1] = 0;
-            moveCount++;
+        if (checkGameEnd()) {
+            queuedMoves.clear();
+            return;
+        }
 
-            // Update number objects
-            for (GridNumber n : gridNumbers) {
-                if (n.getRow() == r1 && n.getCol() == c1) {
-                    n.setPos(r2, c2);
-                    n.setValue(value);
-                }
-            }
+        while (!moveInFlight && !queuedMoves.isEmpty()) startMove(queuedMoves.poll());
+    }
 
-            if (value == 2048 && !hasWon) hasWon = true;
+    /**
+     * A method to apply waiting moves and add their numbers without animating them.
+     *
+     * @param keep The number of the latest waiting moves to leave waiting
+     */
+    private void applyQueuedMoves(int keep) {
+        while (queuedMoves.size() > keep) {
+            // Stops at a win so the win dialog is shown for the winning board
+            if (getHasWon() && !isGameContinued()) {
+                queuedMoves.clear();
+                return;
+            }
 
-            // Updating cell pointers
-            r1 += d[0];
-            c1 += d[1];
-            r2 += d[0];
-            c2 += d[1];
+            if (applyMove(queuedMoves.poll()) != null) {
+                addNumber();
+                droppedFrames += ANIMATION_FRAMES;
+            }
         }
     }
 
     /**
-     * A method to store the previous grid states.
+     * A method to finish the animating move and apply every waiting move straight away,
+     * so the board is up to date before it is saved or changed directly.
      */
-    private void storeGridState() {
-        long[][] numberGridTemp = new long[gridSize][gridSize];
-
-        for (int row = 0; row < gridSize; row++)
-            System.arraycopy(numberGrid[row], 0, numberGridTemp[row], 0, gridSize);
+    public void finishMoves() {
+        finishMove(false);
+        applyQueuedMoves(0);
+        setTiles();
+        renderGrid();
+    }
 
-        previousGridStates.add(numberGridTemp);
-        previousNumberCounts.add(numberCount);
-        previousScores.add(score);
+    /**
+     * A method to show the game over or win dialog if the game has ended.
+     *
+     * @return whether a dialog was shown
+     */
+    public boolean checkGameEnd() {
+        if (isGameOver()) {
+            displayLoseDialog();
+            return true;
+        }
 
-        if (previousGridStates.size() > UNDO_LIMIT) {
-            previousGridStates.removeFirst();
-            previousNumberCounts.removeFirst();
-            previousScores.removeFirst();
+        if (getHasWon() && !isGameContinued()) {
+            displayWinDialog();
+            return true;
         }
+
+        return false;
     }
 
     /**
-     * A method to move the numbers in a given direction.
+     * Determines if a move can be undone.
      *
-     * @param direction The direction to move the tile in
+     * @return whether a move can be undone
      */
-    public void move(String direction) {
-        moveCount = 0;
-        combinedStateGrid = new boolean[gridSize][gridSize];
-        GridAction.moveNumbers(this, direction);
-
-        if (moveCount > 0) {
-            render();
-        }
+    public boolean canUndo() {
+        return history.canUndo(board);
     }
 
     /**
      * A method to undo the latest move and restore the previous grid state.
      */
     public void undo() {
-        if (previousGridStates.isEmpty()) return;
+        finishMoves();
 
-        numberGrid = previousGridStates.getLast();
-        numberCount = previousNumberCounts.getLast();
-        score = previousScores.getLast();
+        GameEvents.Undo event = new GameEvents.Undo();
+        event.begin();
 
-        previousGridStates.removeLast();
-        previousNumberCounts.removeLast();
-        previousScores.removeLast();
+        MoveJournal moves = journal();
+        boolean restored = history.undo(board);
+        if (restored) {
+            moves.recordRestore(board);
+            setTiles();
+            renderGrid();
+        }
 
-        setGridNumbers();
-        GameStorage.save(this);
-        renderGrid();
+        event.end();
+        if (event.shouldCommit()) {
+            event.restored = restored;
+            event.commit();
+        }
     }
 
     /**
-     * A method to return the value displayed with 4 digits with its decimal point shifted to the thousands' separator. <br>
-     * For example, 131,072 would become 131.0, which can be displayed as 131.0 K.
-     *
-     * @param value The value to truncate.
-     * @return the truncated value with its decimal point shifted
+     * A method to redo the latest undone move.
      */
-    public static double round4(long value) {
-        int digits = (int) Math.log10(value);
-        long divisor = (long) Math.pow(10, (digits / 3) * 3);
-        int roundingFactor = (int) Math.pow(10, (3 - (digits % 3)));
+    public void redo() {
+        finishMoves();
+
+        GameEvents.Undo event = new GameEvents.Undo();
+        event.begin();
 
-        return (double) Math.round(value * roundingFactor / divisor) / roundingFactor;
+        MoveJournal moves = journal();
+        boolean restored = history.redo(board);
+        if (restored) {
+            moves.recordRestore(board);
+            setTiles();
+            renderGrid();
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.redo = true;
+            event.restored = restored;
+            event.commit();
+        }
     }
 
     /**
@@ -476,45 +680,10 @@ public class Grid {
      * @param row Grid row
      * @param offsetX The x-offset of the number
      * @param offsetY The y-offset of the number
-     * @param value The value of the number
-     */
-    public void drawNumber(int col, int row, double offsetX, double offsetY, long value) {
-        double fontSize;
-        double cellSize = this.cellSize * 0.9;
-        double cellOffset = (this.cellSize - cellSize) / 2;
-        String cellText = String.valueOf(value);
-
-        if (value < 100) {
-            fontSize = this.cellSize * 0.366;
-        } else if (value < 1000) {
-            fontSize = this.cellSize * 0.333;
-        } else {
-            fontSize = this.cellSize * 0.233;
-        }
-
-        if (value > 10_000) {
-            cellText = round4(value) + " " + PREFIXES[(int) Math.log10(value) / 3 - 1];
-        }
-
-        GC.setFill(COLORS.getOrDefault(value, Color.GOLD));
-        if (value > 131072) {
-            GC.setFill(Color.BLACK);
-        }
-
-        GC.fillRect(
-            this.cellSize * col + cellOffset + offsetX,
-            this.cellSize * row + cellOffset + offsetY,
-            cellSize,
-            cellSize
-        );
-
-        GC.setFont(Font.font("Segoe UI", FontWeight.BOLD, fontSize));
-        GC.setFill(Color.WHITE);
-        if (value < 8) GC.setFill(Color.valueOf("#444444"));
-        GC.fillText(cellText,
-            this.cellSize / 2 + this.cellSize * col + offsetX,
-            this.cellSize / 2 + this.cellSize * row + offsetY
-        );
+     * @param exponent The exponent of the number
+     */
+    public void drawNumber(int col, int row, double offsetX, double offsetY, int exponent) {
+        GC.drawImage(sprites.get(exponent), cellSize * col + offsetX, cellSize * row + offsetY, cellSize, cellSize);
     }
 
     /**
@@ -522,44 +691,143 @@ public class Grid {
      *
      * @param col Grid column
      * @param row Grid row
-     * @param value The value of the number
+     * @param exponent The exponent of the number
      */
-    public void drawNumber(int col, int row, long value) {
-        drawNumber(col, row, 0, 0, value);
+    public void drawNumber(int col, int row, int exponent) {
+        drawNumber(col, row, 0, 0, exponent);
     }
 
     /**
-     * Renders a single "frame" of during the animation of the numbers moving to their new location.
+     * Renders a single "frame" of during the animation of the numbers moving to their new location. <br>
+     * Only the cells the moving numbers covered in the previous frame are cleared,
+     * so numbers that stay in place are not redrawn.
      *
      * @param step The current frame number
      * @param totalSteps Total amount of frames
      */
     public void partialRenderGrid(int step, int totalSteps) {
+        long start = System.nanoTime();
+        GameEvents.RenderFrame event = new GameEvents.RenderFrame();
+        event.begin();
+
         double offsetX, offsetY;
-        GC.clearRect(0, 0, GC.getCanvas().getWidth(), GC.getCanvas().getHeight());
+        double previousProgress = (double) (step - 1) / totalSteps;
+        int cellsRedrawn = 0;
+
+        // Clears the cells covered by the moving numbers in the previous frame
+        for (int n = 0; n < tiles.size(); n++) {
+            if (tiles.isStatic(n)) continue;
+
+            double row = tiles.getOldRow(n) + (tiles.getRow(n) - tiles.getOldRow(n)) * previousProgress;
+            double col = tiles.getOldCol(n) + (tiles.getCol(n) - tiles.getOldCol(n)) * previousProgress;
+
+            clearCell((int) Math.floor(row), (int) Math.floor(col));
+            clearCell((int) Math.ceil(row), (int) Math.ceil(col));
+        }
+
+        for (int n = 0; n < tiles.size(); n++) {
+            if (tiles.isStatic(n)) continue;
+
+            offsetX = ((tiles.getCol(n) - tiles.getOldCol(n)) * this.cellSize) * ((double) step / totalSteps);
+            offsetY = ((tiles.getRow(n) - tiles.getOldRow(n)) * this.cellSize) * ((double) step / totalSteps);
 
-        for (GridNumber n : gridNumbers) {
-            offsetX = ((n.getCol() - n.getOldCol()) * this.cellSize) * ((double) step / totalSteps);
-            offsetY = ((n.getRow() - n.getOldRow()) * this.cellSize) * ((double) step / totalSteps);
+            drawNumber(tiles.getOldCol(n), tiles.getOldRow(n), offsetX, offsetY, tiles.getOldExponent(n));
+            cellsRedrawn++;
+        }
+
+        Arrays.fill(dirtyCells, false);
+        animationFrames++;
+        frameTimes.record(System.nanoTime() - start);
 
-            drawNumber(n.getOldCol(), n.getOldRow(), offsetX, offsetY, n.getOldValue());
+        event.end();
+        if (event.shouldCommit()) {
+            event.step = step;
+            event.cellsRedrawn = cellsRedrawn;
+            event.commit();
         }
     }
 
     /**
-     * A method to render the grid.
+     * A method to clear a cell once per animation frame, redrawing the number that stays in place in it.
+     *
+     * @param row Grid row
+     * @param col Grid column
+     */
+    private void clearCell(int row, int col) {
+        int cell = row * gridSize + col;
+        if (dirtyCells[cell]) return;
+
+        dirtyCells[cell] = true;
+        GC.clearRect(cellSize * col, cellSize * row, cellSize, cellSize);
+
+        int tile = tiles.indexOf(row, col);
+        if (tile != -1 && tiles.isStatic(tile)) drawNumber(col, row, tiles.getOldExponent(tile));
+    }
+
+    /**
+     * A method to prepare the cells for animating the current tiles. <br>
+     * Every cell a number moves across is marked to be redrawn by the next {@link #renderGrid()}.
+     */
+    private void prepareAnimation() {
+        for (int n = 0; n < tiles.size(); n++) {
+            if (tiles.isStatic(n)) continue;
+
+            int rowStep = Integer.signum(tiles.getRow(n) - tiles.getOldRow(n));
+            int colStep = Integer.signum(tiles.getCol(n) - tiles.getOldCol(n));
+
+            for (int row = tiles.getOldRow(n), col = tiles.getOldCol(n); ; row += rowStep, col += colStep) {
+                drawnExponents[row * gridSize + col] = -1;
+                if (row == tiles.getRow(n) && col == tiles.getCol(n)) break;
+            }
+        }
+    }
+
+    /**
+     * A method to render the grid, redrawing only the cells that changed since it was last rendered.
      */
     public void renderGrid() {
-        long n;
-        GC.clearRect(0, 0, GC.getCanvas().getWidth(), GC.getCanvas().getHeight());
+        long start = System.nanoTime();
+        GameEvents.RenderFrame event = new GameEvents.RenderFrame();
+        event.begin();
+
+        int n;
+        int cellsRedrawn = 0;
+        boolean finishingMove = animating;
+        partialRenderTimeline.stop();
+
+        if (animating) {
+            droppedFrames += Math.max(0, partialRenderTimeline.getCycleCount() - animationFrames);
+            animating = false;
+        }
 
         for (int row = 0; row < gridSize; row++) {
             for (int col = 0; col < gridSize; col++) {
-                n = numberGrid[row][col];
+                int cell = row * gridSize + col;
+                n = board.getExponent(cell);
+
+                if (drawnExponents[cell] == n) continue;
 
+                GC.clearRect(cellSize * col, cellSize * row, cellSize, cellSize);
                 if (n != 0) drawNumber(col, row, n);
+                drawnExponents[cell] = (byte) n;
+                cellsRedrawn++;
             }
         }
+
+        long end = System.nanoTime();
+        frameTimes.record(end - start);
+
+        // The move is complete once the grid is rendered after its animation
+        if (finishingMove && moveStartNanos != 0) {
+            inputLatencies.record(end - moveStartNanos);
+            moveStartNanos = 0;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.cellsRedrawn = cellsRedrawn;
+            event.commit();
+        }
     }
 
     /**
@@ -567,8 +835,12 @@ public class Grid {
      */
     public void render() {
         AtomicInteger i = new AtomicInteger(1);
+        prepareAnimation();
+        animationFrames = 0;
+        animating = true;
+
         double renderTime = renderTimeline.getKeyFrames().getFirst().getTime().toMillis();
-        partialRenderTimeline.setCycleCount(20);
+        partialRenderTimeline.setCycleCount(ANIMATION_FRAMES);
 
         if (!partialRenderTimeline.getKeyFrames().isEmpty())
             partialRenderTimeline.getKeyFrames().removeFirst();
@@ -582,27 +854,20 @@ public class Grid {
     }
 
     /**
-     * Gets the number of moves the player can make.
+     * Gets the number of pairs of neighbouring numbers that can be combined.
      * @return number of playable moves
      */
     public int getPlayableMoves() {
-        int moves = 0;
-
-        for (int row = 0; row < gridSize; row++) {
-            for (int col = 0; col < gridSize; col++) {
-                if (col < gridSize - 1) {
-                    if (numberGrid[row][col] == numberGrid[row][col + 1])
-                        moves++;
-                }
-
-                if (row < gridSize - 1) {
-                    if (numberGrid[row][col] == numberGrid[row + 1][col])
-                        moves++;
-                }
-            }
-        }
+        return board.getPlayableMoves();
+    }
 
-        return moves;
+    /**
+     * Determines if the player has no moves left.
+     *
+     * @return whether the game is over
+     */
+    public boolean isGameOver() {
+        return board.isGameOver();
     }
 
     /**
@@ -611,12 +876,11 @@ public class Grid {
      * @param gridSize The size of the grid
      */
     public void restartGame(int gridSize) {
-        numberGrid = new long[this.gridSize][this.gridSize];
-        score = 0;
-        numberCount = 0;
-        hasWon = false;
-        gameContinued = false;
+        finishMoves();
+        MoveJournal moves = journal();
+        board.clear();
 
+        moves.recordRestore(board);
         GameStorage.save(this);
         startGame(gridSize);
     }
@@ -648,36 +912,20 @@ public class Grid {
                 if (choice.get() == ButtonType.NO) {
                     restartGame(gridSize);
                 } else {
-                    gameContinued = true;
+                    board.setGameContinued(true);
                 }
             }
         });
     }
 
     /**
-     * A method used to format the numberGrid for the purposes of saving the numberGrid.
+     * A method used to format the grid's numbers for the purposes of saving them.
      *
      * @return A string containing each number on the grid all in one line.
      * @see Grid#load()
      */
     @Override
     public String toString() {
-        StringBuilder numbers = new StringBuilder();
-
-        char c;
-        for (long[] row : numberGrid) {
-            for (long col : row) {
-                if (col > 0) {
-                    // Since each value is a power of two, we store its exponent to save space
-                    c = (char) ((int) Math.ceil(Math.log(col) / Math.log(2)) + 32);
-                } else {
-                    c = '_';
-                }
-
-                numbers.append(c);
-            }
-        }
-
-        return numbers.toString();
+        return board.toString();
     }
 }
\ No newline at end of file
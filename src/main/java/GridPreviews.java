@@ -0,0 +1,220 @@
+import core.BoardState;
+import core.SaveFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A class to provide previews of the saved game of each grid size. <br>
+ * A preview is loaded on a background thread the first time it is needed and is then kept until the
+ * grid is saved again, so hovering over the grid size buttons does not read any files.
+ * A save made while the game is running replaces the preview without reading the save file back.
+ *
+ * @author Evan Razzaque
+ */
+public abstract class GridPreviews {
+    /** The width and height (in pixels) of a preview's thumbnail **/
+    public static final int THUMBNAIL_SIZE = 235;
+
+    /** The color of an empty cell **/
+    private static final int EMPTY_ARGB = argb(Color.WHITE);
+
+    /** The color of the lines between cells **/
+    private static final int LINE_ARGB = argb(Color.BLACK);
+
+    /** The preview of each grid size that has been asked for, which is null if the grid has no save **/
+    private static final ConcurrentHashMap<Integer, CompletableFuture<Preview>> previews = new ConcurrentHashMap<>();
+
+    /** The latest save data of each grid size saved since the game started **/
+    private static final ConcurrentHashMap<Integer, ByteBuffer> latestSaves = new ConcurrentHashMap<>();
+
+    /** The thread that loads the previews **/
+    private static final ExecutorService previewLoader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "preview-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A thumbnail and summary of a saved game.
+     */
+    public static class Preview {
+        /**
+         * The downscaled image of the grid
+         */
+        private final WritableImage thumbnail;
+
+        /**
+         * The score of the game
+         */
+        private final long score;
+
+        /**
+         * The largest number on the grid
+         */
+        private final long maxTile;
+
+        /**
+         * A constructor to create a preview.
+         *
+         * @param thumbnail The downscaled image of the grid
+         * @param score The score of the game
+         * @param maxTile The largest number on the grid
+         */
+        private Preview(WritableImage thumbnail, long score, long maxTile) {
+            this.thumbnail = thumbnail;
+            this.score = score;
+            this.maxTile = maxTile;
+        }
+
+        /**
+         * Gets the downscaled image of the grid.
+         *
+         * @return the thumbnail
+         */
+        public WritableImage getThumbnail() {
+            return thumbnail;
+        }
+
+        /**
+         * Gets the score of the game.
+         *
+         * @return the score
+         */
+        public long getScore() {
+            return score;
+        }
+
+        /**
+         * Gets the largest number on the grid.
+         *
+         * @return the largest number, or 0 if the grid is empty
+         */
+        public long getMaxTile() {
+            return maxTile;
+        }
+    }
+
+    /**
+     * A method to get the preview of a grid size, loading it in the background if it is not cached.
+     *
+     * @param gridSize The size of the grid
+     * @return the preview, which completes with null if the grid has no save or the save could not be read
+     */
+    public static CompletableFuture<Preview> get(int gridSize) {
+        return previews.computeIfAbsent(gridSize, size ->
+            CompletableFuture.supplyAsync(() -> load(size), previewLoader).exceptionally(e -> {
+                reportLoadError(size, e);
+                return null;
+            })
+        );
+    }
+
+    /**
+     * A method to print an error from loading a preview.
+     *
+     * @param gridSize The size of the grid whose preview could not be loaded
+     * @param error The error, which may wrap the error thrown by the load
+     */
+    private static void reportLoadError(int gridSize, Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+
+        System.err.println("Could not load the preview of the " + gridSize + "x" + gridSize + " grid: " + error);
+    }
+
+    /**
+     * A method to replace the preview of a grid size after it has been saved. <br>
+     * The new preview is only created the next time it is asked for.
+     *
+     * @param gridSize The size of the saved grid
+     * @param saveData The save data in the {@link SaveFormat}
+     */
+    public static void update(int gridSize, ByteBuffer saveData) {
+        // Stores the save before dropping the preview, so the next preview is created from it
+        latestSaves.put(gridSize, saveData);
+        previews.remove(gridSize);
+    }
+
+    /**
+     * A method to create the preview of a grid size from its latest save.
+     *
+     * @param gridSize The size of the grid
+     * @return the preview, or null if the grid has no save
+     */
+    private static Preview load(int gridSize) {
+        BoardState board = new BoardState(gridSize);
+        ByteBuffer saveData = latestSaves.get(gridSize);
+
+        if (saveData != null) {
+            SaveFormat.decode(saveData.duplicate(), board);
+        } else if (GameStorage.saveExists(gridSize)) {
+            GameStorage.load(gridSize, board);
+        } else {
+            return null;
+        }
+
+        int maxExponent = 0;
+        for (int i = 0; i < gridSize * gridSize; i++) maxExponent = Math.max(maxExponent, board.getExponent(i));
+
+        return new Preview(drawThumbnail(board), board.getScore(), BoardState.getValue(maxExponent));
+    }
+
+    /**
+     * A method to draw a downscaled image of a board, with each number shown as its tile color.
+     *
+     * @param board The board to draw
+     * @return the image
+     */
+    private static WritableImage drawThumbnail(BoardState board) {
+        int gridSize = board.getGridSize();
+        int cellSize = THUMBNAIL_SIZE / gridSize;
+        int size = cellSize * gridSize;
+        int margin = Math.max(1, cellSize / 20);
+
+        WritableImage thumbnail = new WritableImage(size, size);
+        PixelWriter writer = thumbnail.getPixelWriter();
+
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                int exponent = board.getExponent(row * gridSize + col);
+                int tileArgb = exponent == 0 ? EMPTY_ARGB : argb(TileSprites.getColor(exponent));
+
+                for (int y = 0; y < cellSize; y++) {
+                    for (int x = 0; x < cellSize; x++) {
+                        int argb = EMPTY_ARGB;
+
+                        if (x == 0 || y == 0 || x == cellSize - 1 || y == cellSize - 1) {
+                            argb = LINE_ARGB;
+                        } else if (x > margin && y > margin && x < cellSize - 1 - margin && y < cellSize - 1 - margin) {
+                            argb = tileArgb;
+                        }
+
+                        writer.setArgb(col * cellSize + x, row * cellSize + y, argb);
+                    }
+                }
+            }
+        }
+
+        return thumbnail;
+    }
+
+    /**
+     * A method to convert a color to a 32-bit ARGB value.
+     *
+     * @param color The color to convert
+     * @return the ARGB value
+     */
+    private static int argb(Color color) {
+        return (int) Math.round(color.getOpacity() * 255) << 24
+            | (int) Math.round(color.getRed() * 255) << 16
+            | (int) Math.round(color.getGreen() * 255) << 8
+            | (int) Math.round(color.getBlue() * 255);
+    }
+}
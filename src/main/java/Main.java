@@ -1,4 +1,12 @@
+import core.BoardState;
+import core.Direction;
+import core.ExpectimaxSolver;
+import core.LatencyHistogram;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
@@ -6,14 +14,18 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A remake of 2048 with JavaFX.
@@ -22,31 +34,35 @@ import javafx.stage.Stage;
  */
 public class Main extends Application {
     /**
-     * A method to draw the grid on the screen.
+     * A method to draw the background and lines of the grid. <br>
+     * The background is drawn once onto its own canvas behind the tiles and is only redrawn when the grid size changes.
      */
     private void drawGrid() {
         int gridSize = grid.getGridSize();
 
-        if (!root.getChildren().isEmpty()) {
-            while (root.getChildren().getFirst() instanceof Rectangle) {
-                root.getChildren().removeFirst();
-            }
+        if (gridSize == backgroundGridSize) {
+            return;
         }
 
-        for (int row = 0; row < gridSize; row++) {
-            for (int col = 0; col < gridSize; col++) {
-                Rectangle rectangle = new Rectangle(
-                    canvas.getLayoutX() + grid.getCellSize() * col,
-                    canvas.getLayoutY() + grid.getCellSize() * row,
-                    grid.getCellSize(),
-                    grid.getCellSize()
-                );
-
-                rectangle.setFill(Color.WHITE);
-                rectangle.setStroke(Color.BLACK);
-                rectangle.setStrokeWidth(2);
-                root.getChildren().addFirst(rectangle);
-            }
+        backgroundGridSize = gridSize;
+        double cellSize = grid.getCellSize();
+        double size = cellSize * gridSize;
+
+        backgroundGc.clearRect(0, 0, background.getWidth(), background.getHeight());
+        backgroundGc.setFill(Color.WHITE);
+        backgroundGc.fillRect(GRID_LINE_WIDTH / 2, GRID_LINE_WIDTH / 2, size, size);
+
+        backgroundGc.setStroke(Color.BLACK);
+        backgroundGc.setLineWidth(GRID_LINE_WIDTH);
+
+        // Lines between cells would cover the tiles of very large grids, so only the border is drawn
+        int lineStep = cellSize < MIN_LINED_CELL_SIZE ? gridSize : 1;
+
+        for (int i = 0; i <= gridSize; i += lineStep) {
+            double offset = GRID_LINE_WIDTH / 2 + cellSize * i;
+
+            backgroundGc.strokeLine(offset, GRID_LINE_WIDTH / 2, offset, GRID_LINE_WIDTH / 2 + size);
+            backgroundGc.strokeLine(GRID_LINE_WIDTH / 2, offset, GRID_LINE_WIDTH / 2 + size, offset);
         }
     }
 
@@ -56,18 +72,49 @@ public class Main extends Application {
      * @param event The event instance of the clicked grid size button
      */
     private void changeGridSize(ActionEvent event) {
-        previewDisplayGc.clearRect(0, 0, previewDisplay.getWidth(), previewDisplay.getHeight());
+        changeGridSize(Integer.parseInt(((Button) event.getSource()).getText()));
+    }
+
+    /**
+     * A method to start a new game with the grid size typed into the custom grid size field.
+     */
+    private void changeToCustomGridSize() {
+        int value;
+
+        try {
+            value = Integer.parseInt(tf_gridSize.getText().trim());
+        } catch (NumberFormatException e) {
+            value = 0;
+        }
+
+        if (value < 2 || value > Grid.MAX_GRID_SIZE) {
+            new Alert(Alert.AlertType.ERROR, "Invalid grid size input").showAndWait();
+            return;
+        }
+
+        tf_gridSize.clear();
+        changeGridSize(value);
+    }
+
+    /**
+     * A method to start a new game with a given grid size.
+     *
+     * @param value The size of the grid
+     */
+    private void changeGridSize(int value) {
+        hideGridPreview();
 
         root.requestFocus();
-        int value = Integer.parseInt(((Button) event.getSource()).getText());
 
         if (value == grid.getGridSize()) {
             return;
         }
 
+        grid.finishMoves();
         GameStorage.save(grid);
         grid.startGame(value);
         updateScoreDisplay();
+        updateUndoButton();
         drawGrid();
     }
 
@@ -79,21 +126,45 @@ public class Main extends Application {
     private void displayGridPreview(MouseEvent event) {
         int gridSize = Integer.parseInt(((Button) event.getSource()).getText());
 
-        if (gridSize == grid.getGridSize() || !GameStorage.saveExists(gridSize)) {
+        if (gridSize == grid.getGridSize()) {
             return;
         }
 
-        gridPreview = new Grid(previewDisplayGc, gridSize, 0);
-        gridPreview.startGame();
+        hoveredGridSize = gridSize;
+        CompletableFuture<GridPreviews.Preview> preview = GridPreviews.get(gridSize);
 
-        for (int row = 0; row < gridSize; row++) {
-            for (int col = 0; col < gridSize; col++) {
-                previewDisplayGc.strokeRect(
-                        gridPreview.getCellSize() * col, gridPreview.getCellSize() * row,
-                    gridPreview.getCellSize(), gridPreview.getCellSize()
-                );
-            }
+        if (preview.isDone()) {
+            drawGridPreview(preview.join());
+            return;
         }
+
+        // Draws the preview once it is loaded if the button is still hovered
+        preview.thenAcceptAsync(loaded -> {
+            if (hoveredGridSize == gridSize) drawGridPreview(loaded);
+        }, Platform::runLater);
+    }
+
+    /**
+     * A method to draw the preview of a saved grid.
+     *
+     * @param preview The preview to draw, or null if the grid has no save
+     */
+    private void drawGridPreview(GridPreviews.Preview preview) {
+        if (preview == null) {
+            return;
+        }
+
+        previewDisplayGc.drawImage(preview.getThumbnail(), 0, 0);
+        lb_preview.setText("Score: " + formatScore(preview.getScore()) + "\nBest Tile: " + preview.getMaxTile());
+    }
+
+    /**
+     * A method to hide the grid preview.
+     */
+    private void hideGridPreview() {
+        hoveredGridSize = 0;
+        previewDisplayGc.clearRect(0, 0, previewDisplay.getWidth(), previewDisplay.getHeight());
+        lb_preview.setText("");
     }
 
     /**
@@ -107,9 +178,7 @@ public class Main extends Application {
             btn_gridSize.setOnMouseEntered(this::displayGridPreview);
             btn_gridSize.setOnAction(this::changeGridSize);
 
-            btn_gridSize.setOnMouseExited(event ->
-                previewDisplayGc.clearRect(0, 0, previewDisplay.getWidth(), previewDisplay.getHeight())
-            );
+            btn_gridSize.setOnMouseExited(event -> hideGridPreview());
 
             gridSizeSelector.add(btn_gridSize, (i-2) % 3, (i-2) / 3);
         }
@@ -119,7 +188,103 @@ public class Main extends Application {
      * A method to update the score display.
      */
     private void updateScoreDisplay() {
-        lb_score.setText("High Score: " + grid.getHighScore() + "\nScore: " + grid.getScore());
+        lb_score.setText("High Score: " + formatScore(grid.getHighScore()) + "\nScore: " + formatScore(grid.getScore()));
+    }
+
+    /**
+     * A method to format a score for display, marking a score that stopped at {@link BoardState#MAX_SCORE} with a '+'.
+     *
+     * @param score The score to format
+     * @return the formatted score
+     */
+    private static String formatScore(long score) {
+        return BoardState.isCapped(score) ? score + "+" : String.valueOf(score);
+    }
+
+    /**
+     * A method to enable the undo button only while there is a move to undo.
+     */
+    private void updateUndoButton() {
+        btn_undo.setDisable(!grid.canUndo());
+    }
+
+    /**
+     * A method to search for the best move in the background and display it as a hint.
+     */
+    private void displayHint() {
+        if (solver == null) solver = new ExpectimaxSolver();
+
+        BoardState board = grid.getBoard().copy();
+        long hash = board.hash();
+
+        // A search for this board is already running
+        if (hintSearch != null && !hintSearch.isDone() && hash == hintBoardHash) return;
+
+        // A search that has not started yet is skipped, and one that has is ignored when it finishes
+        if (hintSearch != null) hintSearch.cancel(false);
+
+        lb_hint.setText("Hint: ...");
+        hintBoardHash = hash;
+
+        CompletableFuture<Direction> search = CompletableFuture.supplyAsync(() -> solver.suggestMove(board));
+        hintSearch = search;
+
+        search.thenAccept(direction -> Platform.runLater(() -> {
+            if (search != hintSearch) return;
+
+            // The board changed while the search ran, so the hint would be for an old position
+            if (grid.getBoard().hash() != hash) {
+                lb_hint.setText("");
+                return;
+            }
+
+            lb_hint.setText(direction == null ? "Hint: No moves left" : "Hint: " + direction.name().toLowerCase());
+        }));
+    }
+
+    /**
+     * A method to show or hide the overlay of frame times, input latency and move rate.
+     */
+    private void toggleStatsOverlay() {
+        if (lb_stats.isVisible()) {
+            statsTimeline.stop();
+            lb_stats.setVisible(false);
+            return;
+        }
+
+        grid.getFrameTimes().reset();
+        grid.getInputLatencies().reset();
+        lastMoveCount = grid.getMoveCount();
+        updateStatsOverlay();
+
+        lb_stats.setVisible(true);
+        statsTimeline.play();
+    }
+
+    /**
+     * A method to update the overlay of frame times, input latency, move rate and sprite cache counters.
+     */
+    private void updateStatsOverlay() {
+        LatencyHistogram frameTimes = grid.getFrameTimes();
+        LatencyHistogram inputLatencies = grid.getInputLatencies();
+        TileSprites sprites = grid.getSprites();
+        double movesPerSecond = (grid.getMoveCount() - lastMoveCount) / STATS_INTERVAL_SECONDS;
+        lastMoveCount = grid.getMoveCount();
+
+        lb_stats.setText("""
+            Frame p50/p99: %.2f / %.2f ms
+            Input p50/p99: %.1f / %.1f ms
+            Moves/sec: %.1f
+            Dropped frames: %d
+            Sprite hit rate: %.1f%%
+            Sprites built: %d in %.1f ms""".formatted(
+            frameTimes.getValueAtPercentile(50) / 1e6, frameTimes.getValueAtPercentile(99) / 1e6,
+            inputLatencies.getValueAtPercentile(50) / 1e6, inputLatencies.getValueAtPercentile(99) / 1e6,
+            movesPerSecond,
+            grid.getDroppedFrames(),
+            sprites.getHitRate() * 100,
+            sprites.getMisses(), sprites.getBuildNanos() / 1e6
+        ));
     }
 
     /**
@@ -128,6 +293,12 @@ public class Main extends Application {
      * @param ke The keyboard event instance.
      */
     private void gameAction(KeyEvent ke) {
+        // Keys typed into the custom grid size field are not game actions
+        if (tf_gridSize.isFocused()) {
+            if (ke.getCode() == KeyCode.ESCAPE) root.requestFocus();
+            return;
+        }
+
         String direction = "";
 
         switch (ke.getCode()) {
@@ -136,6 +307,8 @@ public class Main extends Application {
             case S, DOWN -> direction = "down";
             case D, RIGHT -> direction = "right";
             case R -> grid.restartGame(grid.getGridSize());
+            case H -> displayHint();
+            case F3 -> toggleStatsOverlay();
             case ESCAPE -> root.requestFocus();
             case Z -> {
                 if (!ke.isControlDown()) break;
@@ -143,19 +316,52 @@ public class Main extends Application {
                 grid.undo();
                 root.requestFocus();
             }
+            case Y -> {
+                if (!ke.isControlDown()) break;
+
+                grid.redo();
+                root.requestFocus();
+            }
+        }
+
+        if (!direction.isEmpty()) {
+            grid.move(direction);
+            lb_hint.setText("");
         }
 
-        if (!direction.isEmpty()) grid.move(direction);
         updateScoreDisplay();
+        updateUndoButton();
     }
 
-    Grid grid, gridPreview;
+    /**
+     * The number of seconds between updates of the stats overlay
+     */
+    private static final double STATS_INTERVAL_SECONDS = 0.5;
+
+    /**
+     * The width (in pixels) of the lines between cells
+     */
+    private static final double GRID_LINE_WIDTH = 2;
+
+    /**
+     * The smallest cell size (in pixels) that lines are drawn between cells for
+     */
+    private static final double MIN_LINED_CELL_SIZE = 4 * GRID_LINE_WIDTH;
+
+    Grid grid;
+    ExpectimaxSolver solver;
+    CompletableFuture<Direction> hintSearch;
+    long hintBoardHash;
+    Timeline statsTimeline;
+    long lastMoveCount;
+    int hoveredGridSize, backgroundGridSize;
     Pane root;
     GridPane gridSizeSelector;
-    Canvas canvas, previewDisplay;
-    GraphicsContext gc, previewDisplayGc;
-    Label lb_score, lb_changeGridSize;
+    Canvas canvas, background, previewDisplay;
+    GraphicsContext gc, backgroundGc, previewDisplayGc;
+    Label lb_score, lb_changeGridSize, lb_hint, lb_stats, lb_preview;
     Button btn_undo, btn_restart;
+    TextField tf_gridSize;
 
     /**
      * The method to set up the window and game.
@@ -168,23 +374,32 @@ public class Main extends Application {
         canvas.relocate(100, 140);
         gc = canvas.getGraphicsContext2D();
 
-        previewDisplay = new Canvas(235, 235);
+        // Lines on the edge of the grid extend half their width past the tile canvas
+        background = new Canvas(canvas.getWidth() + GRID_LINE_WIDTH, canvas.getHeight() + GRID_LINE_WIDTH);
+        background.relocate(canvas.getLayoutX() - GRID_LINE_WIDTH / 2, canvas.getLayoutY() - GRID_LINE_WIDTH / 2);
+        backgroundGc = background.getGraphicsContext2D();
+
+        previewDisplay = new Canvas(GridPreviews.THUMBNAIL_SIZE, GridPreviews.THUMBNAIL_SIZE);
         previewDisplay.relocate(900, 500);
         previewDisplayGc = previewDisplay.getGraphicsContext2D();
 
         lb_score = new Label("High Score: 0\nScore: 0");
         lb_changeGridSize = new Label("Grid Size");
+        lb_hint = new Label("");
+        lb_stats = new Label("");
+        lb_preview = new Label("");
         btn_undo = new Button("Undo");
         btn_restart = new Button("New Game");
+        tf_gridSize = new TextField();
         
         grid = new Grid(gc, 4, 1);
         root = new Pane();
         gridSizeSelector = new GridPane(5, 5);
         drawGrid();
 
-        root.getChildren().add(gridSizeSelector);
+        root.getChildren().addAll(background, gridSizeSelector);
         root.getChildren().add(previewDisplay);
-        root.getChildren().addAll(canvas, lb_score, lb_changeGridSize, btn_undo, btn_restart);
+        root.getChildren().addAll(canvas, lb_score, lb_changeGridSize, lb_hint, lb_stats, lb_preview, btn_undo, btn_restart, tf_gridSize);
         Scene scene = new Scene(root, 1200, 900);
         stage.setScene(scene);
         stage.setResizable(false);
@@ -199,6 +414,19 @@ public class Main extends Application {
         lb_changeGridSize.relocate(900,100);
         lb_changeGridSize.setFont(Font.font(24));
 
+        tf_gridSize.relocate(900, 440);
+        tf_gridSize.setPrefWidth(235);
+        tf_gridSize.setPromptText("Custom size (2 - " + Grid.MAX_GRID_SIZE + ")");
+        tf_gridSize.setOnAction(event -> changeToCustomGridSize());
+
+        lb_hint.relocate(200, 104);
+        lb_preview.relocate(900, 745);
+        lb_stats.relocate(900, 20);
+        lb_stats.setVisible(false);
+        lb_stats.setMouseTransparent(true);
+
+        statsTimeline = new Timeline(new KeyFrame(Duration.seconds(STATS_INTERVAL_SECONDS), event -> updateStatsOverlay()));
+        statsTimeline.setCycleCount(Animation.INDEFINITE);
         btn_undo.relocate(100,100);
         btn_restart.relocate(775, 100);
         btn_restart.setPrefWidth(75);
@@ -208,6 +436,7 @@ public class Main extends Application {
         btn_undo.setOnAction(event -> {
             grid.undo();
             updateScoreDisplay();
+            updateUndoButton();
             root.requestFocus();
         });
 
@@ -217,20 +446,29 @@ public class Main extends Application {
             try {
                 grid.restartGame(grid.getGridSize());
                 updateScoreDisplay();
+                updateUndoButton();
             } catch (NumberFormatException e) {
                 new Alert(Alert.AlertType.ERROR, "Invalid grid size input").showAndWait();
             }
         });
 
-        stage.setOnCloseRequest(event -> GameStorage.save(grid));
+        stage.setOnCloseRequest(event -> {
+            grid.finishMoves();
+            GameStorage.save(grid);
+            grid.closeJournal();
+            if (solver != null) solver.close();
 
-        if (grid.getUndoLimit() == 0) {
-            btn_undo.setDisable(true);
-        }
+            try {
+                GameStorage.flush();
+            } catch (RuntimeException e) {
+                new Alert(Alert.AlertType.ERROR, "The game could not be saved: " + e.getCause()).showAndWait();
+            }
+        });
 
         grid.startGame();
         root.requestFocus();
         updateScoreDisplay();
+        updateUndoButton();
         stage.show();
     }
 
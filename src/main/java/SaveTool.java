@@ -0,0 +1,122 @@
+import core.BoardState;
+import core.JournalReplay;
+
+import java.nio.file.Path;
+
+/**
+ * A class to work with game saves from the command line, without starting the game. <br>
+ * Usage:
+ * <ul>
+ *   <li>{@code SaveTool export [gridSize] [file]} writes a grid's saved game as JSON</li>
+ *   <li>{@code SaveTool verify [gridSize]} replays a grid's journal, checking every snapshot in it</li>
+ *   <li>{@code SaveTool seek [gridSize] [moves] [file]} shows the board after a number of moves of the journal,
+ *   writing it as JSON if a file is given</li>
+ * </ul>
+ *
+ * @author Evan Razzaque
+ */
+public class SaveTool {
+    /**
+     * A method to write a grid's saved game as JSON.
+     *
+     * @param gridSize The size of the grid to export
+     * @param path The JSON file to write
+     * @throws IllegalArgumentException If the grid has no save
+     */
+    private static void export(int gridSize, Path path) {
+        if (!GameStorage.saveExists(gridSize))
+            throw new IllegalArgumentException("No save exists for a " + gridSize + "x" + gridSize + " grid");
+
+        BoardState board = new BoardState(gridSize);
+        GameStorage.load(gridSize, board);
+        GameStorage.exportJson(board, path);
+
+        System.out.printf("Exported the %dx%d game (score %d) to %s%n", gridSize, gridSize, board.getScore(), path);
+    }
+
+    /**
+     * A method to replay a grid's journal and check that every snapshot in it matches the replayed board.
+     *
+     * @param gridSize The size of the grid to verify
+     * @return whether the journal is consistent
+     */
+    private static boolean verify(int gridSize) {
+        JournalReplay replay = readJournal(gridSize);
+        int mismatch = replay.verify();
+
+        if (mismatch == -1) {
+            System.out.printf("The %dx%d journal is consistent (%d moves since the latest save)%n", gridSize, gridSize, replay.getMoveCount());
+            return true;
+        }
+
+        System.out.printf("The %dx%d journal does not match its snapshot after move %d of %d%n", gridSize, gridSize, mismatch, replay.getMoveCount());
+        return false;
+    }
+
+    /**
+     * A method to show the board of a grid's journal after a number of moves.
+     *
+     * @param gridSize The size of the grid
+     * @param moves The number of moves to replay, or -1 for every move
+     * @param path The JSON file to write the board to, or null to only show it
+     */
+    private static void seek(int gridSize, int moves, Path path) {
+        JournalReplay replay = readJournal(gridSize);
+        BoardState board = new BoardState(gridSize);
+        replay.seek(moves == -1 ? replay.getMoveCount() : moves, board);
+
+        for (int row = 0; row < gridSize; row++) {
+            StringBuilder line = new StringBuilder();
+
+            for (int col = 0; col < gridSize; col++) line.append("%6d".formatted(board.get(row, col)));
+            System.out.println(line);
+        }
+
+        System.out.printf("Score: %d%n", board.getScore());
+
+        if (path != null) GameStorage.exportJson(board, path);
+    }
+
+    /**
+     * A method to read a grid's journal.
+     *
+     * @param gridSize The size of the grid
+     * @return the journal's replay
+     * @throws IllegalArgumentException If the grid has no journal
+     */
+    private static JournalReplay readJournal(int gridSize) {
+        JournalReplay replay = GameStorage.readJournal(gridSize);
+        if (replay == null)
+            throw new IllegalArgumentException("No journal exists for a " + gridSize + "x" + gridSize + " grid");
+
+        return replay;
+    }
+
+    /**
+     * The method to run a save command.
+     *
+     * @param args The command followed by its arguments
+     */
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "";
+        int gridSize = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        switch (command) {
+            case "export" -> {
+                Path path = Path.of(args.length > 2 ? args[2] : "grid%d.json".formatted(gridSize));
+
+                export(gridSize, path);
+            }
+            case "verify" -> {
+                if (!verify(gridSize)) System.exit(1);
+            }
+            case "seek" -> {
+                int moves = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+                Path path = args.length > 3 ? Path.of(args[3]) : null;
+
+                seek(gridSize, moves, path);
+            }
+            default -> throw new IllegalArgumentException("Unknown command: " + command + ", expected export, verify or seek");
+        }
+    }
+}
@@ -0,0 +1,285 @@
+import core.BoardState;
+import core.GameSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded in-memory store of {@link GameServer} sessions that evicts the least recently used session once it is full. <br>
+ * Every change to a session is saved with {@link GameStorage#saveSession(String, BoardState)}, which writes it behind
+ * in the background, so an evicted session can be loaded back from its save the next time it is used.
+ * Undo history is only kept while a session is in memory. <br>
+ * Locks are used instead of {@code synchronized} so that virtual threads waiting for a session do not pin their carrier thread.
+ *
+ * @author Evan Razzaque
+ */
+public class SessionStore {
+    /**
+     * The form of a session id: 16 lowercase hexadecimal digits, which is also safe to use as a file name
+     */
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-f]{16}");
+
+    /**
+     * A session in memory, along with the lock its requests take turns with.
+     */
+    static class Entry {
+        /**
+         * The session's game
+         */
+        private final GameSession session;
+
+        /**
+         * The lock held while the session is used
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Whether the session was evicted, after which it must be loaded again
+         */
+        private boolean evicted;
+
+        /**
+         * A constructor for a session entry.
+         *
+         * @param session The session's game
+         */
+        private Entry(GameSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * The most sessions kept in memory
+     */
+    private final int capacity;
+
+    /**
+     * The maximum amount of moves that can be undone in each session
+     */
+    private final int undoLimit;
+
+    /**
+     * The sessions in memory, from least to most recently used
+     */
+    private final LinkedHashMap<String, Entry> sessions;
+
+    /**
+     * The lock held while the sessions in memory are looked up or changed
+     */
+    private final ReentrantLock sessionsLock = new ReentrantLock();
+
+    /**
+     * The random number generator used for session ids and seeds, which is only used while holding {@link #sessionsLock}
+     */
+    private final SplittableRandom random = new SplittableRandom();
+
+    /**
+     * The number of sessions evicted from memory
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * The number of sessions loaded back from their saves
+     */
+    private final AtomicLong loads = new AtomicLong();
+
+    /**
+     * A constructor for a session store.
+     *
+     * @param capacity The most sessions kept in memory
+     * @param undoLimit The maximum amount of moves that can be undone in each session
+     */
+    public SessionStore(int capacity, int undoLimit) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity cannot be less than 1");
+
+        this.capacity = capacity;
+        this.undoLimit = undoLimit;
+        sessions = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * A method to start a new session.
+     *
+     * @param gridSize The size of the session's grid
+     * @param action The action to perform on the new session's id and game, such as describing them
+     * @param <T> The type of the action's result
+     * @return the action's result
+     */
+    public <T> T create(int gridSize, BiFunction<String, GameSession, T> action) {
+        String id;
+        long seed;
+
+        sessionsLock.lock();
+        try {
+            do {
+                id = "%016x".formatted(random.nextLong());
+            } while (sessions.containsKey(id));
+
+            seed = random.nextLong();
+        } finally {
+            sessionsLock.unlock();
+        }
+
+        Entry entry = new Entry(new GameSession(gridSize, undoLimit, seed));
+        GameStorage.saveSession(id, entry.session.getBoard());
+
+        entry.lock.lock();
+        try {
+            put(id, entry);
+            return action.apply(id, entry.session);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * A method to perform an action on a session, loading the session from its save if it is not in memory. <br>
+     * The session is saved after the action, and only one action runs on a session at a time.
+     *
+     * @param id The session's id
+     * @param action The action to perform on the session
+     * @param <T> The type of the action's result
+     * @return the action's result, or null if the session does not exist
+     * @throws IllegalArgumentException If the id is not a valid session id
+     */
+    public <T> T update(String id, Function<GameSession, T> action) {
+        if (!ID_PATTERN.matcher(id).matches())
+            throw new IllegalArgumentException("Invalid session id: " + id);
+
+        while (true) {
+            Entry entry = get(id);
+            if (entry == null) return null;
+
+            entry.lock.lock();
+            try {
+                // An evicted session may have been loaded again, so the loaded copy is used instead
+                if (entry.evicted) continue;
+
+                long hash = entry.session.getBoard().hash();
+                long score = entry.session.getBoard().getScore();
+                T result = action.apply(entry.session);
+
+                if (entry.session.getBoard().hash() != hash || entry.session.getBoard().getScore() != score)
+                    GameStorage.saveSession(id, entry.session.getBoard());
+
+                return result;
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A method to get a session, loading it from its save if it is not in memory.
+     *
+     * @param id The session's id
+     * @return the session's entry, or null if the session does not exist
+     */
+    private Entry get(String id) {
+        sessionsLock.lock();
+        try {
+            Entry entry = sessions.get(id);
+            if (entry != null) return entry;
+        } finally {
+            sessionsLock.unlock();
+        }
+
+        // Loads outside the lock so that reading a save does not hold up other sessions
+        BoardState board = GameStorage.loadSession(id);
+        if (board == null) return null;
+
+        long seed;
+        sessionsLock.lock();
+        try {
+            Entry entry = sessions.get(id);
+            if (entry != null) return entry;
+
+            seed = random.nextLong();
+        } finally {
+            sessionsLock.unlock();
+        }
+
+        Entry loaded = new Entry(new GameSession(board, undoLimit, seed));
+        Entry entry = put(id, loaded);
+
+        // Only counts the load if another thread did not load the session first
+        if (entry == loaded) loads.incrementAndGet();
+
+        return entry;
+    }
+
+    /**
+     * A method to add a session to memory, evicting the least recently used sessions if the store is full.
+     *
+     * @param id The session's id
+     * @param entry The session's entry
+     * @return the session's entry in memory, which is an entry added by another thread if there is one
+     */
+    private Entry put(String id, Entry entry) {
+        sessionsLock.lock();
+        try {
+            Entry existing = sessions.putIfAbsent(id, entry);
+            if (existing != null) return existing;
+
+            var iterator = sessions.entrySet().iterator();
+            while (sessions.size() > capacity) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                if (eldest.getValue() == entry) continue;
+
+                // Waits for any action on the session to finish, which saves its latest state
+                eldest.getValue().lock.lock();
+                try {
+                    eldest.getValue().evicted = true;
+                } finally {
+                    eldest.getValue().lock.unlock();
+                }
+
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+
+            return entry;
+        } finally {
+            sessionsLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of sessions in memory.
+     *
+     * @return the number of sessions
+     */
+    public int size() {
+        sessionsLock.lock();
+        try {
+            return sessions.size();
+        } finally {
+            sessionsLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of sessions evicted from memory.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the number of sessions loaded back from their saves.
+     *
+     * @return the number of loads
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+}
@@ -0,0 +1,427 @@
+import core.Bitboard;
+import core.BoardState;
+import core.Direction;
+import core.ExpectimaxSolver;
+import core.GameEngine;
+import core.GameResultWriter;
+import core.GreedyStrategy;
+import core.MonteCarloPlayer;
+import core.RandomStrategy;
+import core.Strategy;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+/**
+ * A class to play many complete games without a display, for balance testing and as a load generator for the engine. <br>
+ * Games are played on worker threads with the same {@link GameEngine} rules as the game, with 4x4 games played
+ * on a {@link Bitboard} for as long as no move could overflow one of its cells. Each result is
+ * handed to a single writer thread through a bounded queue, which writes it with a {@link GameResultWriter}. <br>
+ * Usage: {@code Simulator [games per size] [grid sizes] [random|greedy|expectimax|montecarlo|class name] [threads] [output file] [seed]}
+ *
+ * @author Evan Razzaque
+ */
+public class Simulator {
+    /**
+     * The most results waiting to be written before the workers wait for the writer
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * The result that tells the writer every game has finished
+     */
+    private static final GameResult END = new GameResult(0, 0, 0, 0, 0, 0);
+
+    /**
+     * A single finished game.
+     */
+    static class GameResult {
+        /**
+         * The size of the grid
+         */
+        private final int gridSize;
+
+        /**
+         * The seed of the added numbers
+         */
+        private final long seed;
+
+        /**
+         * The final score
+         */
+        private final long score;
+
+        /**
+         * The exponent of the largest number
+         */
+        private final int maxExponent;
+
+        /**
+         * The number of moves made
+         */
+        private final int moves;
+
+        /**
+         * The duration of the game in nanoseconds
+         */
+        private final long durationNanos;
+
+        /**
+         * A constructor for a game result.
+         *
+         * @param gridSize The size of the grid
+         * @param seed The seed of the added numbers
+         * @param score The final score
+         * @param maxExponent The exponent of the largest number
+         * @param moves The number of moves made
+         * @param durationNanos The duration of the game in nanoseconds
+         */
+        private GameResult(int gridSize, long seed, long score, int maxExponent, int moves, long durationNanos) {
+            this.gridSize = gridSize;
+            this.seed = seed;
+            this.score = score;
+            this.maxExponent = maxExponent;
+            this.moves = moves;
+            this.durationNanos = durationNanos;
+        }
+    }
+
+    /**
+     * The totals of the games played on one grid size.
+     */
+    static class SizeTotals {
+        /**
+         * The number of games played
+         */
+        private long games;
+
+        /**
+         * The sum of the final scores
+         */
+        private long score;
+
+        /**
+         * The number of moves made
+         */
+        private long moves;
+
+        /**
+         * The exponent of the largest number reached
+         */
+        private int maxExponent;
+    }
+
+    /**
+     * The number of games played on each grid size
+     */
+    private final int games;
+
+    /**
+     * The grid sizes to play on
+     */
+    private final int[] gridSizes;
+
+    /**
+     * The number of worker threads
+     */
+    private final int threads;
+
+    /**
+     * The seed the games' seeds are derived from
+     */
+    private final long seed;
+
+    /**
+     * A function that creates a worker's strategy from a seed
+     */
+    private final LongFunction<Strategy> strategies;
+
+    /**
+     * The results waiting to be written
+     */
+    private final BlockingQueue<GameResult> results = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * The totals of each grid size, which are only used by the writer thread
+     */
+    private final TreeMap<Integer, SizeTotals> totals = new TreeMap<>();
+
+    /**
+     * A constructor for a simulation.
+     *
+     * @param games The number of games played on each grid size
+     * @param gridSizes The grid sizes to play on
+     * @param threads The number of worker threads
+     * @param seed The seed the games' seeds are derived from
+     * @param strategies A function that creates a worker's strategy from a seed
+     */
+    public Simulator(int games, int[] gridSizes, int threads, long seed, LongFunction<Strategy> strategies) {
+        if (games < 1)
+            throw new IllegalArgumentException("Games cannot be less than 1");
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads cannot be less than 1");
+
+        for (int gridSize : gridSizes) {
+            if (gridSize < 2)
+                throw new IllegalArgumentException("Grid size cannot be less than 2");
+        }
+
+        this.games = games;
+        this.gridSizes = gridSizes;
+        this.threads = threads;
+        this.seed = seed;
+        this.strategies = strategies;
+    }
+
+    /**
+     * A method to play every game and write the results.
+     *
+     * @param output The file to write the results to
+     * @return the totals of each grid size, in ascending grid size order
+     * @throws RuntimeException If the file could not be created, before any game is played
+     */
+    public TreeMap<Integer, SizeTotals> run(Path output) {
+        // Creates the file before starting any thread, since workers would wait forever for a writer that failed to start
+        GameResultWriter resultWriter = new GameResultWriter(output);
+
+        AtomicInteger nextGame = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "result-writer"));
+
+        try {
+            Future<?> written = writer.submit(() -> writeResults(resultWriter));
+            Future<?>[] played = new Future<?>[threads];
+
+            // The workers' seeds come from a separate sequence so they do not repeat the games' seeds
+            SplittableRandom workerSeeds = new SplittableRandom(~seed);
+
+            for (int i = 0; i < threads; i++) {
+                long workerSeed = workerSeeds.nextLong();
+                played[i] = workers.submit(() -> playGames(nextGame, strategies.apply(workerSeed)));
+            }
+
+            try {
+                for (Future<?> worker : played) worker.get();
+            } finally {
+                // Lets the writer finish even if a worker failed
+                results.put(END);
+            }
+
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+            writer.shutdownNow();
+        }
+
+        return totals;
+    }
+
+    /**
+     * A method to play games until every game has been claimed by a worker.
+     *
+     * @param nextGame The index of the next game to play, shared by every worker
+     * @param strategy The strategy used to choose moves
+     * @return null, so the method can be submitted as a {@link java.util.concurrent.Callable}
+     * @throws InterruptedException If the worker was interrupted while waiting for the writer
+     */
+    private Void playGames(AtomicInteger nextGame, Strategy strategy) throws InterruptedException {
+        try (strategy) {
+            GameEngine engine = null;
+            BoardState board = null;
+            int game;
+
+            while ((game = nextGame.getAndIncrement()) < games * gridSizes.length) {
+                int gridSize = gridSizes[game / games];
+
+                if (engine == null || engine.getGridSize() != gridSize) {
+                    engine = new GameEngine(gridSize);
+                    board = new BoardState(gridSize);
+
+                    // The workers already keep every thread busy, so lines are only moved in parallel by a lone worker
+                    if (threads > 1) engine.setParallel(false);
+                }
+
+                results.put(playGame(engine, board, strategy, seed + game));
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * A method to play a single game to the end.
+     *
+     * @param engine The engine to play with
+     * @param board The board to play on, which is cleared first
+     * @param strategy The strategy used to choose moves
+     * @param gameSeed The seed of the added numbers
+     * @return the result of the game
+     */
+    private static GameResult playGame(GameEngine engine, BoardState board, Strategy strategy, long gameSeed) {
+        long start = System.nanoTime();
+        int moves = 0;
+
+        engine.setRandom(new SplittableRandom(gameSeed));
+        board.clear();
+
+        if (board.getGridSize() == Bitboard.SIZE) {
+            moves = playPackedGame(engine, board, strategy);
+        } else {
+            engine.spawn(board);
+            engine.spawn(board);
+        }
+
+        // Finishes a packed game that could no longer be played on a bitboard
+        Direction direction;
+        while ((direction = strategy.suggestMove(board)) != null) {
+            engine.move(board, direction);
+            engine.spawn(board);
+            moves++;
+        }
+
+        int maxExponent = 0;
+        for (int cell = 0; cell < board.getGridSize() * board.getGridSize(); cell++)
+            maxExponent = Math.max(maxExponent, board.getExponent(cell));
+
+        return new GameResult(board.getGridSize(), gameSeed, board.getScore(), maxExponent, moves, System.nanoTime() - start);
+    }
+
+    /**
+     * A method to play a 4x4 game on a {@link Bitboard} until it ends or a move could overflow a cell,
+     * then to unpack it onto a board.
+     *
+     * @param engine The engine to add numbers with
+     * @param board The board to unpack the game onto, which is empty
+     * @param strategy The strategy used to choose moves
+     * @return the number of moves made
+     */
+    private static int playPackedGame(GameEngine engine, BoardState board, Strategy strategy) {
+        long packed = engine.spawn(engine.spawn(0L));
+        long score = 0;
+        int moves = 0;
+
+        Direction direction;
+        while (!Bitboard.canOverflow(packed) && (direction = strategy.suggestMove(packed)) != null) {
+            score = BoardState.addPoints(score, Bitboard.score(packed, direction));
+            packed = engine.spawn(Bitboard.move(packed, direction));
+            moves++;
+        }
+
+        Bitboard.unpack(packed, board);
+        board.setScore(score);
+
+        return moves;
+    }
+
+    /**
+     * A method to write results as they arrive until every game has finished, then close the result file.
+     *
+     * @param writer The writer of the result file
+     * @return null, so the method can be submitted as a {@link java.util.concurrent.Callable}
+     * @throws InterruptedException If the writer was interrupted while waiting for a result
+     */
+    private Void writeResults(GameResultWriter writer) throws InterruptedException {
+        RuntimeException failure = null;
+
+        try (writer) {
+            GameResult result;
+
+            while ((result = results.take()) != END) {
+                SizeTotals sizeTotals = totals.computeIfAbsent(result.gridSize, size -> new SizeTotals());
+                sizeTotals.games++;
+                sizeTotals.score = BoardState.addPoints(sizeTotals.score, result.score);
+                sizeTotals.moves += result.moves;
+                sizeTotals.maxExponent = Math.max(sizeTotals.maxExponent, result.maxExponent);
+
+                // Keeps taking results after a failed write so the workers are never left waiting
+                if (failure != null) continue;
+
+                try {
+                    writer.write(result.gridSize, result.seed, result.score, result.maxExponent, result.moves, result.durationNanos);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+        }
+
+        if (failure != null) throw failure;
+
+        return null;
+    }
+
+    /**
+     * A method to create the strategy with a given name.
+     *
+     * @param name The name of a built-in strategy, or the class name of a {@link Strategy} with a no-argument constructor
+     * @param seed The seed of the strategy's random number generator
+     * @return the strategy
+     */
+    private static Strategy createStrategy(String name, long seed) {
+        return switch (name) {
+            case "random" -> new RandomStrategy(seed);
+            case "greedy" -> new GreedyStrategy();
+            case "expectimax" -> new ExpectimaxSolver(2, 1, 18);
+            case "montecarlo" -> new MonteCarloPlayer(20, 200, 1, seed);
+            default -> {
+                try {
+                    yield Class.forName(name).asSubclass(Strategy.class).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Unknown strategy: " + name, e);
+                }
+            }
+        };
+    }
+
+    /**
+     * The method to run a simulation.
+     *
+     * @param args The number of games per grid size, comma separated grid sizes, the strategy,
+     *             the number of threads, the output file and the seed
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int[] gridSizes = Arrays.stream((args.length > 1 ? args[1] : "4").split(",")).mapToInt(Integer::parseInt).toArray();
+        String strategyName = args.length > 2 ? args[2] : "random";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        Path output = Path.of(args.length > 4 ? args[4] : "simulation.results");
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : System.nanoTime();
+
+        // Fails before starting any thread if the strategy does not exist
+        createStrategy(strategyName, seed).close();
+
+        Simulator simulator = new Simulator(games, gridSizes, threads, seed, workerSeed -> createStrategy(strategyName, workerSeed));
+        long start = System.nanoTime();
+        TreeMap<Integer, SizeTotals> totals = simulator.run(output);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long totalGames = 0, totalMoves = 0;
+        for (Map.Entry<Integer, SizeTotals> entry : totals.entrySet()) {
+            SizeTotals sizeTotals = entry.getValue();
+            totalGames += sizeTotals.games;
+            totalMoves += sizeTotals.moves;
+
+            System.out.printf("%dx%d: %d games, average score %d, average moves %.1f, best tile %d%n",
+                entry.getKey(), entry.getKey(), sizeTotals.games, sizeTotals.score / sizeTotals.games,
+                (double) sizeTotals.moves / sizeTotals.games, BoardState.getValue(sizeTotals.maxExponent));
+        }
+
+        System.out.printf("%d games in %.2f s with %s on %d threads (seed %d), written to %s%n",
+            totalGames, seconds, strategyName, threads, seed, output);
+        System.out.printf("Games/sec: %.1f, moves/sec: %.0f%n", totalGames / seconds, totalMoves / seconds);
+    }
+}
@@ -0,0 +1,63 @@
+import core.BoardState;
+import core.Direction;
+import core.ExpectimaxSolver;
+import core.GameEngine;
+import core.MonteCarloPlayer;
+import core.Strategy;
+
+/**
+ * A class to play games with a solver without a display and report its throughput. <br>
+ * Usage: {@code SolverBatch [gridSize] [games] [depth or playouts] [threads] [expectimax|montecarlo]}
+ *
+ * @author Evan Razzaque
+ */
+public class SolverBatch {
+    /**
+     * The method to run the batch.
+     *
+     * @param args The grid size, number of games, search depth (or playouts per move), number of threads and solver
+     */
+    public static void main(String[] args) {
+        int gridSize = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String solverName = args.length > 4 ? args[4] : "expectimax";
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : solverName.equals("montecarlo") ? 100 : 3;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        BoardState board = new BoardState(gridSize);
+        GameEngine engine = new GameEngine(gridSize);
+        long moves = 0, totalScore = 0, bestTile = 0;
+        long start = System.nanoTime();
+
+        try (Strategy solver = switch (solverName) {
+            case "expectimax" -> new ExpectimaxSolver(depth, threads, 22);
+            case "montecarlo" -> new MonteCarloPlayer(depth, Integer.MAX_VALUE, threads, System.nanoTime());
+            default -> throw new IllegalArgumentException("Unknown solver: " + solverName);
+        }) {
+            for (int game = 0; game < games; game++) {
+                board.clear();
+                engine.spawn(board);
+                engine.spawn(board);
+
+                Direction direction;
+                while ((direction = solver.suggestMove(board)) != null) {
+                    engine.move(board, direction);
+                    engine.spawn(board);
+                    moves++;
+                }
+
+                for (int cell = 0; cell < gridSize * gridSize; cell++)
+                    bestTile = Math.max(bestTile, board.get(cell));
+
+                totalScore = BoardState.addPoints(totalScore, board.getScore());
+                System.out.printf("Game %d: score %d, moves so far %d%n", game + 1, board.getScore(), moves);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%d games on a %dx%d grid in %.2f s (%s %d, %d threads)%n", games, gridSize, gridSize, seconds, solverName, depth, threads);
+            System.out.printf("Average score: %d, best tile: %d%n", totalScore / Math.max(games, 1), bestTile);
+            System.out.printf("Moves/sec: %.1f, nodes/sec: %.0f%n", moves / seconds, solver.getNodeCount() / seconds);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+import core.BoardState;
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A cache of pre-rendered tile images, with one image per tile exponent at the current cell size. <br>
+ * A tile is painted once into a {@link WritableImage}, so drawing it afterwards is a single {@code drawImage}.
+ * The cache holds at most one image per exponent and is emptied whenever the cell size changes.
+ * The text of every tile is worked out once from its exponent, so tiles too large for a {@code long} can still be shown.
+ *
+ * @author Evan Razzaque
+ */
+public class TileSprites {
+    /**
+     * The number of exponents a cache can hold an image for
+     */
+    private static final int MAX_SPRITES = BoardState.MAX_EXPONENT + 1;
+
+    /**
+     * A hashmap mapping tile numbers to background colors for a tile
+     */
+    private static final HashMap<Long, Color> COLORS = GameAssets.getColors();
+
+    /**
+     * Prefixes for displaying large numbers on a tile
+     */
+    private static final char[] PREFIXES = new char[] {'K', 'M', 'B', 'T', 'q', 'Q', 's', 'S'};
+
+    /**
+     * The color of the text on the smallest tiles
+     */
+    private static final Color DARK_TEXT = Color.valueOf("#444444");
+
+    /**
+     * The text shown on the tile of each exponent
+     */
+    private static final String[] LABELS = createLabels();
+
+    /**
+     * The image of each tile exponent, or null if it has not been rendered
+     */
+    private final WritableImage[] sprites = new WritableImage[MAX_SPRITES];
+
+    /**
+     * The size (in pixels) of the cells the images are rendered for
+     */
+    private double cellSize;
+
+    /**
+     * The number of images drawn from the cache
+     */
+    private long hits;
+
+    /**
+     * The number of images that had to be rendered
+     */
+    private long misses;
+
+    /**
+     * The total time (in nanoseconds) spent rendering images
+     */
+    private long buildNanos;
+
+    /**
+     * Sets the size of the cells, emptying the cache if it changed.
+     *
+     * @param cellSize The size (in pixels) of each cell
+     */
+    public void setCellSize(double cellSize) {
+        if (cellSize == this.cellSize) return;
+
+        this.cellSize = cellSize;
+        Arrays.fill(sprites, null);
+    }
+
+    /**
+     * Gets the image of a tile, rendering it if it is not cached.
+     *
+     * @param exponent The exponent of the tile's number
+     * @return the tile's image, covering a whole cell
+     */
+    public WritableImage get(int exponent) {
+        WritableImage sprite = sprites[exponent];
+
+        if (sprite != null) {
+            hits++;
+            return sprite;
+        }
+
+        long start = System.nanoTime();
+        sprite = render(exponent);
+        buildNanos += System.nanoTime() - start;
+        misses++;
+        sprites[exponent] = sprite;
+
+        return sprite;
+    }
+
+    /**
+     * Gets the fraction of images drawn from the cache.
+     *
+     * @return the hit rate, or 0 if no image has been requested
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    /**
+     * Gets the number of images that had to be rendered.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the total time spent rendering images.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Gets the background color of a tile.
+     *
+     * @param exponent The exponent of the tile's number
+     * @return the tile's color
+     */
+    public static Color getColor(int exponent) {
+        // Tiles past 131072 are black
+        if (exponent > 17) return Color.BLACK;
+
+        return COLORS.getOrDefault(1L << exponent, Color.GOLD);
+    }
+
+    /**
+     * Gets the text shown on a tile.
+     *
+     * @param exponent The exponent of the tile's number
+     * @return the tile's text
+     */
+    public static String getLabel(int exponent) {
+        return LABELS[exponent];
+    }
+
+    /**
+     * A method to work out the text of every tile. <br>
+     * Numbers up to 10,000 are shown in full, larger numbers with 4 digits and a prefix,
+     * and numbers too large for a prefix as a power of two.
+     *
+     * @return the text of each exponent
+     */
+    private static String[] createLabels() {
+        String[] labels = new String[MAX_SPRITES];
+
+        for (int exponent = 1; exponent < MAX_SPRITES; exponent++) {
+            BigInteger value = BigInteger.ONE.shiftLeft(exponent);
+            int digits = value.toString().length() - 1;
+
+            if (value.compareTo(BigInteger.valueOf(10_000)) <= 0) {
+                labels[exponent] = value.toString();
+            } else if (digits / 3 - 1 < PREFIXES.length) {
+                labels[exponent] = round4(value, digits) + " " + PREFIXES[digits / 3 - 1];
+            } else {
+                labels[exponent] = "2^" + exponent;
+            }
+        }
+
+        return labels;
+    }
+
+    /**
+     * A method to return the value displayed with 4 digits with its decimal point shifted to the thousands' separator. <br>
+     * For example, 131,072 would become 131.0, which can be displayed as 131.0 K.
+     *
+     * @param value The value to truncate
+     * @param digits The number of digits in the value, minus one
+     * @return the truncated value with its decimal point shifted
+     */
+    private static double round4(BigInteger value, int digits) {
+        BigInteger divisor = BigInteger.TEN.pow((digits / 3) * 3);
+        int roundingFactor = (int) Math.pow(10, (3 - (digits % 3)));
+
+        return value.multiply(BigInteger.valueOf(roundingFactor)).divide(divisor).doubleValue() / roundingFactor;
+    }
+
+    /**
+     * A method to render the image of a tile.
+     *
+     * @param exponent The exponent of the tile's number
+     * @return the tile's image
+     */
+    private WritableImage render(int exponent) {
+        Canvas canvas = new Canvas(Math.ceil(cellSize), Math.ceil(cellSize));
+        paint(canvas.getGraphicsContext2D(), exponent);
+
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+
+        return canvas.snapshot(parameters, null);
+    }
+
+    /**
+     * A method to paint a tile at the top left corner of a graphics context.
+     *
+     * @param gc The graphics context to paint on
+     * @param exponent The exponent of the tile's number
+     */
+    private void paint(GraphicsContext gc, int exponent) {
+        double fontSize;
+        double tileSize = cellSize * 0.9;
+        double tileOffset = (cellSize - tileSize) / 2;
+
+        // Numbers below 100 have at most 2 digits and numbers below 1000 at most 3
+        if (exponent < 7) {
+            fontSize = cellSize * 0.366;
+        } else if (exponent < 10) {
+            fontSize = cellSize * 0.333;
+        } else {
+            fontSize = cellSize * 0.233;
+        }
+
+        gc.setFill(getColor(exponent));
+        gc.fillRect(tileOffset, tileOffset, tileSize, tileSize);
+
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setFont(Font.font("Segoe UI", FontWeight.BOLD, fontSize));
+        gc.setFill(exponent < 3 ? DARK_TEXT : Color.WHITE);
+        gc.fillText(LABELS[exponent], cellSize / 2, cellSize / 2);
+    }
+}
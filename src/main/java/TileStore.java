@@ -0,0 +1,206 @@
+import java.util.Arrays;
+
+/**
+ * The tiles of a grid with their current and previous positions and exponents, used to animate a move. <br>
+ * Tiles are stored as parallel arrays that are reused for every move, so filling the store does not allocate,
+ * and each cell maps to the tile that started in it, so finding the tile in a cell takes constant time.
+ *
+ * @author Evan Razzaque
+ */
+public class TileStore {
+    /**
+     * The size of the grid
+     */
+    private final int gridSize;
+
+    /**
+     * The row of each tile
+     */
+    private final int[] rows;
+
+    /**
+     * The column of each tile
+     */
+    private final int[] cols;
+
+    /**
+     * The previous row of each tile
+     */
+    private final int[] oldRows;
+
+    /**
+     * The previous column of each tile
+     */
+    private final int[] oldCols;
+
+    /**
+     * The exponent of each tile's number
+     */
+    private final byte[] exponents;
+
+    /**
+     * The previous exponent of each tile's number
+     */
+    private final byte[] oldExponents;
+
+    /**
+     * The tile that started in each cell, or -1 if no tile started in the cell
+     */
+    private final int[] tileAtCell;
+
+    /**
+     * The number of tiles
+     */
+    private int size;
+
+    /**
+     * A constructor for an empty tile store.
+     *
+     * @param gridSize The size of the grid
+     */
+    public TileStore(int gridSize) {
+        int cells = gridSize * gridSize;
+
+        this.gridSize = gridSize;
+        rows = new int[cells];
+        cols = new int[cells];
+        oldRows = new int[cells];
+        oldCols = new int[cells];
+        exponents = new byte[cells];
+        oldExponents = new byte[cells];
+        tileAtCell = new int[cells];
+        Arrays.fill(tileAtCell, -1);
+    }
+
+    /**
+     * A method to remove every tile.
+     */
+    public void clear() {
+        for (int tile = 0; tile < size; tile++) tileAtCell[oldRows[tile] * gridSize + oldCols[tile]] = -1;
+
+        size = 0;
+    }
+
+    /**
+     * A method to add a tile. <br>
+     * Each tile must start in a different cell.
+     *
+     * @param oldRow The row the tile started in
+     * @param oldCol The column the tile started in
+     * @param row The row the tile ended up in
+     * @param col The column the tile ended up in
+     * @param oldExponent The exponent of the tile's number before it moved
+     * @param exponent The exponent of the tile's number after it moved
+     */
+    public void add(int oldRow, int oldCol, int row, int col, int oldExponent, int exponent) {
+        oldRows[size] = oldRow;
+        oldCols[size] = oldCol;
+        rows[size] = row;
+        cols[size] = col;
+        oldExponents[size] = (byte) oldExponent;
+        exponents[size] = (byte) exponent;
+        tileAtCell[oldRow * gridSize + oldCol] = size;
+        size++;
+    }
+
+    /**
+     * A method to add a tile that does not move.
+     *
+     * @param row Grid row
+     * @param col Grid column
+     * @param exponent The exponent of the tile's number
+     */
+    public void add(int row, int col, int exponent) {
+        add(row, col, row, col, exponent, exponent);
+    }
+
+    /**
+     * Gets the number of tiles.
+     *
+     * @return the number of tiles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the tile that started in a cell.
+     *
+     * @param row Grid row
+     * @param col Grid column
+     * @return the tile's index, or -1 if no tile started in the cell
+     */
+    public int indexOf(int row, int col) {
+        return tileAtCell[row * gridSize + col];
+    }
+
+    /**
+     * Gets a tile's row on the grid.
+     *
+     * @param tile The tile's index
+     * @return the tile's row
+     */
+    public int getRow(int tile) {
+        return rows[tile];
+    }
+
+    /**
+     * Gets a tile's column on the grid.
+     *
+     * @param tile The tile's index
+     * @return the tile's column
+     */
+    public int getCol(int tile) {
+        return cols[tile];
+    }
+
+    /**
+     * Gets a tile's previous row on the grid.
+     *
+     * @param tile The tile's index
+     * @return the tile's previous row
+     */
+    public int getOldRow(int tile) {
+        return oldRows[tile];
+    }
+
+    /**
+     * Gets a tile's previous column on the grid.
+     *
+     * @param tile The tile's index
+     * @return the tile's previous column
+     */
+    public int getOldCol(int tile) {
+        return oldCols[tile];
+    }
+
+    /**
+     * Gets the exponent of a tile's number.
+     *
+     * @param tile The tile's index
+     * @return the tile's exponent
+     */
+    public int getExponent(int tile) {
+        return exponents[tile];
+    }
+
+    /**
+     * Gets the previous exponent of a tile's number.
+     *
+     * @param tile The tile's index
+     * @return the tile's previous exponent
+     */
+    public int getOldExponent(int tile) {
+        return oldExponents[tile];
+    }
+
+    /**
+     * Determines if a tile stays in place.
+     *
+     * @param tile The tile's index
+     * @return whether the tile stays in place
+     */
+    public boolean isStatic(int tile) {
+        return rows[tile] == oldRows[tile] && cols[tile] == oldCols[tile];
+    }
+}
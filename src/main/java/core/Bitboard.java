@@ -0,0 +1,395 @@
+package core;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Methods to play a 4x4 game of 2048 on a board packed into a single {@code long}. <br>
+ * Each cell is stored as a 4-bit exponent (0 for an empty cell), with cell (row, col) at bit {@code 4 * (4 * row + col)}.
+ * Rows are moved through precomputed lookup tables covering all 65536 possible rows. <br>
+ * The solver, the strategies and the simulator play 4x4 games on bitboards, and {@link GameEngine} moves
+ * the lines of a 4x4 {@link BoardState} through the same tables.
+ *
+ * @author Evan Razzaque
+ */
+public final class Bitboard {
+    /**
+     * The size of the grid a bitboard can store
+     */
+    public static final int SIZE = 4;
+
+    /**
+     * The largest exponent a cell can store
+     */
+    public static final int MAX_EXPONENT = 15;
+
+    /**
+     * Returned by a move when two tiles would combine into a tile too large for a cell
+     */
+    public static final long OVERFLOW = -1L;
+
+    /**
+     * Returned by {@link #moveLine} when a line's numbers changed
+     */
+    static final int LINE_CHANGED = 1;
+
+    /**
+     * Returned by {@link #moveLine} when a line's numbers did not change
+     */
+    static final int LINE_UNCHANGED = 0;
+
+    /**
+     * Returned by {@link #moveLine} when a line cannot be moved through the lookup tables
+     */
+    static final int LINE_UNSUPPORTED = -1;
+
+    /**
+     * Each row after being moved left, or -1 if the move would overflow a cell
+     */
+    private static final int[] ROW_LEFT = new int[1 << 16];
+
+    /**
+     * Each row after being moved right, or -1 if the move would overflow a cell
+     */
+    private static final int[] ROW_RIGHT = new int[1 << 16];
+
+    /**
+     * The points gained by moving each row
+     */
+    private static final int[] ROW_SCORE = new int[1 << 16];
+
+    /**
+     * Where each cell of a row ends up when moved left (2 bits per cell) in the low byte,
+     * and which cells of the moved row were combined in the high byte
+     */
+    private static final char[] ROW_TILES = new char[1 << 16];
+
+    static {
+        int[] line = new int[SIZE];
+
+        for (int row = 0; row < 1 << 16; row++) {
+            int target = 0, pending = 0, score = 0, tiles = 0;
+            boolean overflow = false;
+
+            for (int i = 0; i < SIZE; i++) line[i] = 0;
+
+            for (int i = 0; i < SIZE; i++) {
+                int exponent = (row >>> (4 * i)) & 0xF;
+                if (exponent == 0) continue;
+
+                if (exponent == pending) {
+                    if (exponent == MAX_EXPONENT) overflow = true;
+
+                    line[target - 1] = exponent + 1;
+                    score += 1 << (exponent + 1);
+                    tiles |= (target - 1) << (2 * i) | 1 << (8 + target - 1);
+                    pending = 0;
+                } else {
+                    line[target] = exponent;
+                    tiles |= target << (2 * i);
+                    target++;
+                    pending = exponent;
+                }
+            }
+
+            int result = 0;
+            for (int i = 0; i < SIZE; i++) result |= (line[i] & 0xF) << (4 * i);
+
+            ROW_LEFT[row] = overflow ? -1 : result;
+            ROW_SCORE[row] = score;
+            ROW_TILES[row] = (char) tiles;
+        }
+
+        for (int row = 0; row < 1 << 16; row++) {
+            int moved = ROW_LEFT[reverseRow(row)];
+            ROW_RIGHT[row] = moved < 0 ? -1 : reverseRow(moved);
+        }
+    }
+
+    /**
+     * Bitboards only contain static methods.
+     */
+    private Bitboard() {
+    }
+
+    /**
+     * A method to reverse the order of the cells in a row.
+     *
+     * @param row The row to reverse
+     * @return the reversed row
+     */
+    private static int reverseRow(int row) {
+        return (row >>> 12) | ((row >>> 4) & 0x00F0) | ((row << 4) & 0x0F00) | ((row << 12) & 0xF000);
+    }
+
+    /**
+     * A method to swap the rows and columns of a board.
+     *
+     * @param board The board to transpose
+     * @return the transposed board
+     */
+    public static long transpose(long board) {
+        long a1 = board & 0xF0F00F0FF0F00F0FL;
+        long a2 = board & 0x0000F0F00000F0F0L;
+        long a3 = board & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /**
+     * A method to move the numbers on a board in a given direction.
+     *
+     * @param board The board to move
+     * @param direction The direction to move the numbers in
+     * @return the moved board, or {@link #OVERFLOW} if a combined tile would not fit in a cell
+     */
+    public static long move(long board, Direction direction) {
+        return switch (direction) {
+            case LEFT -> moveRows(board, ROW_LEFT);
+            case RIGHT -> moveRows(board, ROW_RIGHT);
+            case UP -> {
+                long moved = moveRows(transpose(board), ROW_LEFT);
+                yield moved == OVERFLOW ? OVERFLOW : transpose(moved);
+            }
+            case DOWN -> {
+                long moved = moveRows(transpose(board), ROW_RIGHT);
+                yield moved == OVERFLOW ? OVERFLOW : transpose(moved);
+            }
+        };
+    }
+
+    /**
+     * A method to move every row of a board through a lookup table.
+     *
+     * @param board The board to move
+     * @param table The lookup table to use
+     * @return the moved board, or {@link #OVERFLOW} if a combined tile would not fit in a cell
+     */
+    private static long moveRows(long board, int[] table) {
+        long result = 0;
+
+        for (int row = 0; row < SIZE; row++) {
+            int moved = table[(int) (board >>> (16 * row)) & 0xFFFF];
+            if (moved < 0) return OVERFLOW;
+
+            result |= (long) moved << (16 * row);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the points gained by moving a board in a given direction.
+     *
+     * @param board The board to move
+     * @param direction The direction to move the numbers in
+     * @return the points gained by the move
+     */
+    public static long score(long board, Direction direction) {
+        if (!direction.isHorizontal()) board = transpose(board);
+
+        long score = 0;
+        for (int row = 0; row < SIZE; row++) {
+            int cells = (int) (board >>> (16 * row)) & 0xFFFF;
+            score += ROW_SCORE[direction == Direction.LEFT || direction == Direction.UP ? cells : reverseRow(cells)];
+        }
+
+        return score;
+    }
+
+    /**
+     * Determines if moving a board in a given direction would change it.
+     *
+     * @param board The board to move
+     * @param direction The direction to move the numbers in
+     * @return whether the move can be made
+     */
+    public static boolean canMove(long board, Direction direction) {
+        return move(board, direction) != board;
+    }
+
+    /**
+     * Determines if a move could combine two tiles into a tile too large for a cell, in which case the game has to
+     * continue on a {@link BoardState}.
+     *
+     * @param board The board to check
+     * @return whether any move would return {@link #OVERFLOW}
+     */
+    public static boolean canOverflow(long board) {
+        for (Direction direction : Direction.values()) {
+            if (move(board, direction) == OVERFLOW) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Determines if no move can be made on a board.
+     *
+     * @param board The board to check
+     * @return whether the game is over
+     */
+    public static boolean isGameOver(long board) {
+        for (Direction direction : Direction.values()) {
+            if (canMove(board, direction)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the number of empty cells on a board.
+     *
+     * @param board The board to check
+     * @return the number of empty cells
+     */
+    public static int countEmpty(long board) {
+        // Sets the lowest bit of each nibble that contains a number
+        long filled = board | (board >>> 1);
+        filled |= filled >>> 2;
+
+        return SIZE * SIZE - Long.bitCount(filled & 0x1111111111111111L);
+    }
+
+    /**
+     * Gets the exponent stored in a cell.
+     *
+     * @param board The board
+     * @param index The cell's index (row * 4 + col)
+     * @return the exponent in the cell, or 0 if the cell is empty
+     */
+    public static int getExponent(long board, int index) {
+        return (int) (board >>> (4 * index)) & 0xF;
+    }
+
+    /**
+     * A method to add a number with a random empty location and with a value of 2 or 4,
+     * with the same chances as {@link GameEngine#spawn(BoardState)}.
+     *
+     * @param board The board to add the number to
+     * @param random The random number generator to use
+     * @return the board with the number added, or the same board if it is full
+     */
+    public static long spawn(long board, RandomGenerator random) {
+        int empty = countEmpty(board);
+        if (empty == 0) return board;
+
+        int exponent = random.nextInt(100) < 10 ? 2 : 1;
+        int skip = random.nextInt(empty);
+
+        for (int index = 0; index < SIZE * SIZE; index++) {
+            if (getExponent(board, index) != 0) continue;
+            if (skip-- == 0) return board | (long) exponent << (4 * index);
+        }
+
+        return board;
+    }
+
+    /**
+     * Gets a hash of a board that spreads its cells over every bit, for looking it up in a {@link TranspositionTable}.
+     *
+     * @param board The board
+     * @return the board's hash
+     */
+    public static long hash(long board) {
+        long z = (board ^ (board >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Determines if a board's numbers fit in a bitboard.
+     *
+     * @param state The board to check
+     * @return whether the board can be packed
+     */
+    public static boolean canPack(BoardState state) {
+        if (state.getGridSize() != SIZE) return false;
+
+        for (int index = 0; index < SIZE * SIZE; index++) {
+            if (state.getExponent(index) > MAX_EXPONENT) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * A method to pack the numbers of a board into a bitboard.
+     *
+     * @param state The board to pack, which must satisfy {@link #canPack(BoardState)}
+     * @return the bitboard
+     */
+    public static long pack(BoardState state) {
+        long board = 0;
+
+        for (int index = 0; index < SIZE * SIZE; index++)
+            board |= (long) state.getExponent(index) << (4 * index);
+
+        return board;
+    }
+
+    /**
+     * A method to set the numbers of a board from a bitboard.
+     *
+     * @param board The bitboard
+     * @param state The board to set the numbers of
+     */
+    public static void unpack(long board, BoardState state) {
+        for (int index = 0; index < SIZE * SIZE; index++)
+            state.setExponent(index, getExponent(board, index));
+    }
+
+    /**
+     * A method to move a single line of a {@link BoardState} through the lookup tables.
+     *
+     * @param state The board containing the line
+     * @param start The cell of the line next to the wall the numbers move towards
+     * @param step The index offset between neighbouring cells of the line, moving away from the wall
+     * @param result The result to record the tiles and points of the move in
+     * @return {@link #LINE_CHANGED}, {@link #LINE_UNCHANGED}, or {@link #LINE_UNSUPPORTED} if the line's
+     * numbers do not fit in the lookup tables, in which case nothing is recorded
+     */
+    static int moveLine(BoardState state, int start, int step, MoveResult result) {
+        int row = 0;
+
+        for (int i = 0; i < SIZE; i++) {
+            int exponent = state.getExponent(start + i * step);
+            if (exponent > MAX_EXPONENT) return LINE_UNSUPPORTED;
+
+            row |= exponent << (4 * i);
+        }
+
+        int moved = ROW_LEFT[row];
+        if (moved < 0) return LINE_UNSUPPORTED;
+
+        int tiles = ROW_TILES[row];
+        for (int i = 0; i < SIZE; i++) {
+            int exponent = (row >>> (4 * i)) & 0xF;
+            if (exponent == 0) continue;
+
+            result.addTile(start + i * step, start + ((tiles >>> (2 * i)) & 3) * step, exponent);
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            if ((tiles & 1 << (8 + i)) == 0) continue;
+
+            int exponent = (moved >>> (4 * i)) & 0xF;
+            result.addMerge(exponent);
+
+            if (exponent == GameEngine.WINNING_EXPONENT && !state.getHasWon()) state.setHasWon(true);
+        }
+
+        if (moved == row) return LINE_UNCHANGED;
+
+        for (int i = 0; i < SIZE; i++) {
+            int exponent = (moved >>> (4 * i)) & 0xF;
+            if (state.getExponent(start + i * step) != exponent) state.setExponent(start + i * step, exponent);
+        }
+
+        return LINE_CHANGED;
+    }
+}
@@ -0,0 +1,663 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * The state of a game of 2048 without any rendering attached to it. <br>
+ * Every change to a cell goes through {@link #setExponent(int, int)}, which keeps the empty cells,
+ * the number of neighbouring cells that allow each move and the board's Zobrist hash up to date,
+ * so checking whether a move can be made, whether the game is over or whether two boards match does not scan the board.
+ *
+ * @author Evan Razzaque
+ */
+public class BoardState {
+    /**
+     * The largest exponent a cell can hold
+     */
+    public static final int MAX_EXPONENT = Byte.MAX_VALUE;
+
+    /**
+     * The largest score that can be kept. Scores stop here instead of overflowing, since numbers on very large grids
+     * can be worth more than a {@code long} holds, so a score of exactly this many points means at least this many
+     */
+    public static final long MAX_SCORE = Long.MAX_VALUE;
+
+    /**
+     * The size of the grid
+     */
+    private final int gridSize;
+
+    /**
+     * The exponent of each number on the board stored row by row, where 0 is an empty cell
+     */
+    private final byte[] cells;
+
+    /**
+     * The indices of the empty cells, where only the first {@link #freeCount} entries are used
+     */
+    private final int[] freeCells;
+
+    /**
+     * The position of each cell in {@link #freeCells}, or -1 if the cell contains a number
+     */
+    private final int[] freePositions;
+
+    /**
+     * The number of empty cells on the board
+     */
+    private int freeCount;
+
+    /**
+     * The number of neighbouring cell pairs that allow each move, indexed by {@link Direction#ordinal()}. <br>
+     * A pair allows a move if the cell further from the wall has a number and the cell nearer the wall
+     * is empty or has the same number.
+     */
+    private final int[] movablePairs = new int[4];
+
+    /**
+     * The number of neighbouring cell pairs with the same number, which can be combined
+     */
+    private int equalPairs;
+
+    /**
+     * The Zobrist hash of the numbers on the board
+     */
+    private long hash;
+
+    /**
+     * The current score for the game, which is at most {@link #MAX_SCORE}
+     */
+    private long score;
+
+    /**
+     * The high score for the game and grid size
+     */
+    private long highScore;
+
+    /**
+     * Whether the player has reached the 2048 tile or not
+     */
+    private boolean hasWon;
+
+    /**
+     * Whether the player decided to continue the game after reach 2048
+     */
+    private boolean gameContinued;
+
+    /**
+     * A constructor for an empty board.
+     *
+     * @param gridSize The size of the grid
+     */
+    public BoardState(int gridSize) {
+        if (gridSize < 2)
+            throw new IllegalArgumentException("Grid size cannot be less than 2");
+
+        this.gridSize = gridSize;
+        cells = new byte[gridSize * gridSize];
+        freeCells = new int[cells.length];
+        freePositions = new int[cells.length];
+        hash = emptyHash(gridSize);
+        clearFreeCells();
+    }
+
+    /**
+     * Gets the grid size.
+     *
+     * @return the size of the grid
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Gets the exponent of the number at a cell.
+     *
+     * @param index The cell's index (row * gridSize + col)
+     * @return the exponent of the number in the cell, or 0 if the cell is empty
+     */
+    public int getExponent(int index) {
+        return cells[index];
+    }
+
+    /**
+     * A method to set the exponent of the number in a cell.
+     *
+     * @param index The cell's index (row * gridSize + col)
+     * @param exponent The exponent of the number to set, or 0 to empty the cell
+     * @throws IllegalArgumentException If the exponent is larger than {@link #MAX_EXPONENT}
+     */
+    public void setExponent(int index, int exponent) {
+        if (cells[index] == exponent) return;
+        if (exponent > MAX_EXPONENT)
+            throw new IllegalArgumentException("Number is too large for a cell: 2^" + exponent);
+
+        countPairs(index, -1);
+        hash ^= zobristKey(index, cells[index]) ^ zobristKey(index, exponent);
+
+        if (cells[index] == 0 && exponent != 0) {
+            removeFreeCell(index);
+        } else if (cells[index] != 0 && exponent == 0) {
+            addFreeCell(index);
+        }
+
+        cells[index] = (byte) exponent;
+        countPairs(index, 1);
+    }
+
+    /**
+     * Gets the array the exponents of the numbers are stored in row by row, for kernels that read whole lines at once. <br>
+     * The array must not be modified.
+     *
+     * @return the exponent of each cell, where 0 is an empty cell
+     */
+    byte[] getCells() {
+        return cells;
+    }
+
+    /**
+     * A method to set the exponent of the number in a cell without updating the empty cells, pair counts or hash,
+     * so that different threads can write different cells at the same time. <br>
+     * The caller is responsible for bringing the rest of the board up to date with {@link #removeFreeCell(int)},
+     * {@link #addFreeCell(int)}, {@link #setPairCounts(int[])} and {@link #updateHash(long)} afterwards.
+     *
+     * @param index The cell's index (row * gridSize + col)
+     * @param exponent The exponent of the number to set, or 0 to empty the cell
+     * @throws IllegalArgumentException If the exponent is larger than {@link #MAX_EXPONENT}
+     */
+    void writeExponent(int index, int exponent) {
+        if (exponent > MAX_EXPONENT)
+            throw new IllegalArgumentException("Number is too large for a cell: 2^" + exponent);
+
+        cells[index] = (byte) exponent;
+    }
+
+    /**
+     * A method to remove a cell that has been filled from the empty cells. <br>
+     * The last empty cell is swapped into the filled cell's position.
+     *
+     * @param index The cell's index (row * gridSize + col)
+     */
+    void removeFreeCell(int index) {
+        int position = freePositions[index];
+        int last = freeCells[--freeCount];
+
+        freeCells[position] = last;
+        freePositions[last] = position;
+        freePositions[index] = -1;
+    }
+
+    /**
+     * A method to add a cell that has been emptied to the empty cells.
+     *
+     * @param index The cell's index (row * gridSize + col)
+     */
+    void addFreeCell(int index) {
+        freeCells[freeCount] = index;
+        freePositions[index] = freeCount++;
+    }
+
+    /**
+     * A method to count the neighbouring cell pairs that allow each move in a band of rows,
+     * which includes the pairs between the last row of the band and the row below it.
+     *
+     * @param fromRow The first row of the band
+     * @param toRow The row after the last row of the band
+     * @param counts The counts to add to, with the pairs that allow each move indexed by
+     *               {@link Direction#ordinal()} followed by the pairs that can be combined
+     */
+    void countPairs(int fromRow, int toRow, int[] counts) {
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                int index = row * gridSize + col;
+
+                if (col < gridSize - 1) countPair(index, index + 1, Direction.LEFT, Direction.RIGHT, counts);
+                if (row < gridSize - 1) countPair(index, index + gridSize, Direction.UP, Direction.DOWN, counts);
+            }
+        }
+    }
+
+    /**
+     * A method to add a pair of neighbouring cells to a set of pair counts.
+     *
+     * @param first The cell that is left of or above the other cell
+     * @param second The cell that is right of or below the other cell
+     * @param towardsFirst The direction that moves numbers from the second cell towards the first
+     * @param towardsSecond The direction that moves numbers from the first cell towards the second
+     * @param counts The counts to add to, in the order of {@link #countPairs(int, int, int[])}
+     */
+    private void countPair(int first, int second, Direction towardsFirst, Direction towardsSecond, int[] counts) {
+        int a = cells[first];
+        int b = cells[second];
+
+        if (b != 0 && (a == 0 || a == b)) counts[towardsFirst.ordinal()]++;
+        if (a != 0 && (b == 0 || a == b)) counts[towardsSecond.ordinal()]++;
+        if (a != 0 && a == b) counts[4]++;
+    }
+
+    /**
+     * Sets the neighbouring cell pair counts, replacing the counts kept up to date by {@link #setExponent(int, int)}.
+     *
+     * @param counts The counts of the whole board, in the order of {@link #countPairs(int, int, int[])}
+     */
+    void setPairCounts(int[] counts) {
+        System.arraycopy(counts, 0, movablePairs, 0, movablePairs.length);
+        equalPairs = counts[4];
+    }
+
+    /**
+     * A method to apply the changes of cells written with {@link #writeExponent(int, int)} to the board's hash.
+     *
+     * @param delta The XOR of the old and new {@link #zobristKey(int, int)} of every changed cell
+     */
+    void updateHash(long delta) {
+        hash ^= delta;
+    }
+
+    /**
+     * A method to add or remove the pairs a cell forms with its neighbours from the pair counts.
+     *
+     * @param index The cell's index (row * gridSize + col)
+     * @param sign 1 to add the pairs, or -1 to remove them
+     */
+    private void countPairs(int index, int sign) {
+        int row = index / gridSize;
+        int col = index - row * gridSize;
+
+        if (col > 0) countPair(index - 1, index, Direction.LEFT, Direction.RIGHT, sign);
+        if (col < gridSize - 1) countPair(index, index + 1, Direction.LEFT, Direction.RIGHT, sign);
+        if (row > 0) countPair(index - gridSize, index, Direction.UP, Direction.DOWN, sign);
+        if (row < gridSize - 1) countPair(index, index + gridSize, Direction.UP, Direction.DOWN, sign);
+    }
+
+    /**
+     * A method to add or remove a pair of neighbouring cells from the pair counts.
+     *
+     * @param first The cell that is left of or above the other cell
+     * @param second The cell that is right of or below the other cell
+     * @param towardsFirst The direction that moves numbers from the second cell towards the first
+     * @param towardsSecond The direction that moves numbers from the first cell towards the second
+     * @param sign 1 to add the pair, or -1 to remove it
+     */
+    private void countPair(int first, int second, Direction towardsFirst, Direction towardsSecond, int sign) {
+        int a = cells[first];
+        int b = cells[second];
+
+        if (b != 0 && (a == 0 || a == b)) movablePairs[towardsFirst.ordinal()] += sign;
+        if (a != 0 && (b == 0 || a == b)) movablePairs[towardsSecond.ordinal()] += sign;
+        if (a != 0 && a == b) equalPairs += sign;
+    }
+
+    /**
+     * Determines if moving the numbers in a direction would change the board.
+     *
+     * @param direction The direction to move the numbers in
+     * @return whether the move can be made
+     */
+    public boolean canMove(Direction direction) {
+        return movablePairs[direction.ordinal()] > 0;
+    }
+
+    /**
+     * Determines if no move can be made.
+     *
+     * @return whether the game is over
+     */
+    public boolean isGameOver() {
+        return (movablePairs[0] | movablePairs[1] | movablePairs[2] | movablePairs[3]) == 0;
+    }
+
+    /**
+     * Gets the number at a cell, which is {@link Long#MAX_VALUE} if the number does not fit in a {@code long}.
+     *
+     * @param index The cell's index (row * gridSize + col)
+     * @return the number in the cell, or 0 if the cell is empty
+     */
+    public long get(int index) {
+        return getValue(cells[index]);
+    }
+
+    /**
+     * Gets the number at a cell, which is {@link Long#MAX_VALUE} if the number does not fit in a {@code long}.
+     *
+     * @param row Grid row
+     * @param col Grid column
+     * @return the number in the cell, or 0 if the cell is empty
+     */
+    public long get(int row, int col) {
+        return get(row * gridSize + col);
+    }
+
+    /**
+     * A method to set the number in a cell.
+     *
+     * @param index The cell's index (row * gridSize + col)
+     * @param value The number to set, which must be a power of two, or 0 to empty the cell
+     */
+    public void set(int index, long value) {
+        setExponent(index, value == 0 ? 0 : Long.numberOfTrailingZeros(value));
+    }
+
+    /**
+     * A method to set the number in a cell.
+     *
+     * @param row Grid row
+     * @param col Grid column
+     * @param value The number to set, which must be a power of two, or 0 to empty the cell
+     */
+    public void set(int row, int col, long value) {
+        set(row * gridSize + col, value);
+    }
+
+    /**
+     * Gets the number of number tiles on the board.
+     *
+     * @return the amount of numbers
+     */
+    public int getNumberCount() {
+        return cells.length - freeCount;
+    }
+
+    /**
+     * Determines if every cell on the board has a number.
+     *
+     * @return whether the board is full or not
+     */
+    public boolean isFull() {
+        return freeCount == 0;
+    }
+
+    /**
+     * Gets the number of empty cells on the board.
+     *
+     * @return the number of empty cells
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    /**
+     * Gets an empty cell of the board. <br>
+     * The order of the empty cells changes as numbers are added and removed.
+     *
+     * @param position The position of the empty cell, from 0 to {@link #getFreeCount()} - 1
+     * @return the index of the empty cell (row * gridSize + col)
+     */
+    public int getFreeCell(int position) {
+        if (position >= freeCount)
+            throw new IndexOutOfBoundsException(position);
+
+        return freeCells[position];
+    }
+
+    /**
+     * A method to mark every cell of the board as empty in the free cell index.
+     */
+    private void clearFreeCells() {
+        for (int i = 0; i < cells.length; i++) {
+            freeCells[i] = i;
+            freePositions[i] = i;
+        }
+
+        freeCount = cells.length;
+    }
+
+    /**
+     * Gets the current score of the game.
+     *
+     * @return the current score, where {@link #MAX_SCORE} means the score is at least that large
+     */
+    public long getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the current score of the game.
+     *
+     * @param score The score to set
+     */
+    public void setScore(long score) {
+        this.score = score;
+    }
+
+    /**
+     * A method to add points to the score, updating the high score if it is passed. <br>
+     * The score stops at {@link #MAX_SCORE} instead of overflowing.
+     *
+     * @param points The points to add
+     */
+    public void addScore(long points) {
+        score = addPoints(score, points);
+
+        if (score > highScore) highScore = score;
+    }
+
+    /**
+     * Gets the highscore for the grid size.
+     *
+     * @return the highscore for the grid size
+     */
+    public long getHighScore() {
+        return highScore;
+    }
+
+    /**
+     * Sets the highscore for the grid size.
+     *
+     * @param highScore The highscore to set
+     */
+    public void setHighScore(long highScore) {
+        this.highScore = highScore;
+    }
+
+    /**
+     * Determines if the player has won.
+     *
+     * @return whether the player has won or not
+     */
+    public boolean getHasWon() {
+        return hasWon;
+    }
+
+    /**
+     * Sets whether the player has won.
+     *
+     * @param hasWon Whether the player has won or not
+     */
+    public void setHasWon(boolean hasWon) {
+        this.hasWon = hasWon;
+    }
+
+    /**
+     * Determines if the game has been continued.
+     *
+     * @return whether the game is continued or not
+     */
+    public boolean isGameContinued() {
+        return gameContinued;
+    }
+
+    /**
+     * Sets whether the game has been continued after reaching 2048.
+     *
+     * @param gameContinued Whether the game is continued or not
+     */
+    public void setGameContinued(boolean gameContinued) {
+        this.gameContinued = gameContinued;
+    }
+
+    /**
+     * A method to empty the board and reset the game, keeping the high score.
+     */
+    public void clear() {
+        Arrays.fill(cells, (byte) 0);
+        Arrays.fill(movablePairs, 0);
+        equalPairs = 0;
+        hash = emptyHash(gridSize);
+        clearFreeCells();
+        score = 0;
+        hasWon = false;
+        gameContinued = false;
+    }
+
+    /**
+     * A method to copy the state of another board of the same size into this board.
+     *
+     * @param other The board to copy
+     */
+    public void copyFrom(BoardState other) {
+        if (other.gridSize != gridSize)
+            throw new IllegalArgumentException("Grid sizes do not match");
+
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        System.arraycopy(other.freeCells, 0, freeCells, 0, cells.length);
+        System.arraycopy(other.freePositions, 0, freePositions, 0, cells.length);
+        freeCount = other.freeCount;
+        System.arraycopy(other.movablePairs, 0, movablePairs, 0, movablePairs.length);
+        equalPairs = other.equalPairs;
+        hash = other.hash;
+        score = other.score;
+        highScore = other.highScore;
+        hasWon = other.hasWon;
+        gameContinued = other.gameContinued;
+    }
+
+    /**
+     * A method to create a copy of the board.
+     *
+     * @return the copy of the board
+     */
+    public BoardState copy() {
+        BoardState copy = new BoardState(gridSize);
+        copy.copyFrom(this);
+
+        return copy;
+    }
+
+    /**
+     * Gets the number of pairs of neighbouring numbers that can be combined.
+     *
+     * @return number of playable moves
+     */
+    public int getPlayableMoves() {
+        return equalPairs;
+    }
+
+    /**
+     * Gets the number with an exponent, which is {@link Long#MAX_VALUE} if the number does not fit in a {@code long}.
+     *
+     * @param exponent The exponent of the number
+     * @return the number, or 0 if the exponent is 0
+     */
+    public static long getValue(int exponent) {
+        if (exponent == 0) return 0;
+
+        return exponent < Long.SIZE - 1 ? 1L << exponent : Long.MAX_VALUE;
+    }
+
+    /**
+     * A method to add points to a score without overflowing.
+     *
+     * @param score The score, which cannot be negative
+     * @param points The points to add, which cannot be negative
+     * @return the sum, or {@link #MAX_SCORE} if it does not fit in a {@code long}
+     */
+    public static long addPoints(long score, long points) {
+        long sum = score + points;
+
+        return sum < 0 ? MAX_SCORE : sum;
+    }
+
+    /**
+     * Determines if a score has been capped at {@link #MAX_SCORE}, so the real score is at least that large.
+     *
+     * @param score The score to check
+     * @return whether the score is capped
+     */
+    public static boolean isCapped(long score) {
+        return score == MAX_SCORE;
+    }
+
+    /**
+     * Gets the 64-bit Zobrist hash of the numbers on the board, which is kept up to date as cells change. <br>
+     * Boards with the same grid size and numbers have the same hash, whatever their score. The hash starts from
+     * {@link #emptyHash(int)}, so boards of different sizes with the same numbers in the same cells have different hashes.
+     *
+     * @return the hash of the board
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Gets the Zobrist key of a number in a cell, which the board's hash is the XOR of. <br>
+     * Instead of a table of random keys, which would need a key per cell and exponent, each key is
+     * worked out by mixing the cell and exponent with the SplitMix64 finalizer.
+     *
+     * @param index The cell's index (row * gridSize + col)
+     * @param exponent The exponent of the number in the cell
+     * @return the key, which is 0 for an empty cell
+     */
+    public static long zobristKey(int index, int exponent) {
+        if (exponent == 0) return 0;
+
+        return mix((long) index << 8 | exponent);
+    }
+
+    /**
+     * Gets the hash of an empty board.
+     *
+     * @param gridSize The size of the grid
+     * @return the hash, which differs for each grid size
+     */
+    public static long emptyHash(int gridSize) {
+        return mix(-gridSize);
+    }
+
+    /**
+     * A method to scramble the bits of a number with the SplitMix64 finalizer.
+     *
+     * @param z The number to scramble
+     * @return the scrambled number
+     */
+    private static long mix(long z) {
+        z = (z + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A method to load the numbers on the board from their saved format.
+     *
+     * @param numbers The saved numbers, one character per cell
+     * @see BoardState#toString()
+     */
+    public void load(String numbers) {
+        if (numbers.length() != cells.length)
+            throw new IllegalArgumentException("Saved grid does not match the grid size");
+
+        for (int i = 0; i < cells.length; i++) {
+            if (numbers.charAt(i) == '_') setExponent(i, 0);
+            else setExponent(i, numbers.charAt(i) - 32);
+        }
+    }
+
+    /**
+     * A method used to format the board for the purposes of saving the board.
+     *
+     * @return A string containing each number on the board all in one line.
+     * @see BoardState#load(String)
+     */
+    @Override
+    public String toString() {
+        StringBuilder numbers = new StringBuilder(cells.length);
+
+        for (byte exponent : cells) {
+            // Since each value is a power of two, we store its exponent to save space
+            numbers.append(exponent == 0 ? '_' : (char) (exponent + 32));
+        }
+
+        return numbers.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package core;
+
+/**
+ * The directions the numbers on a board can be moved in.
+ *
+ * @author Evan Razzaque
+ */
+public enum Direction {
+    LEFT(0, -1),
+    RIGHT(0, 1),
+    UP(-1, 0),
+    DOWN(1, 0);
+
+    /**
+     * The amount of rows a number moves per step
+     */
+    private final int rowStep;
+
+    /**
+     * The amount of columns a number moves per step
+     */
+    private final int colStep;
+
+    /**
+     * A constructor for a direction.
+     *
+     * @param rowStep The amount of rows a number moves per step
+     * @param colStep The amount of columns a number moves per step
+     */
+    Direction(int rowStep, int colStep) {
+        this.rowStep = rowStep;
+        this.colStep = colStep;
+    }
+
+    /**
+     * Gets the amount of rows a number moves per step.
+     *
+     * @return the row step
+     */
+    public int getRowStep() {
+        return rowStep;
+    }
+
+    /**
+     * Gets the amount of columns a number moves per step.
+     *
+     * @return the column step
+     */
+    public int getColStep() {
+        return colStep;
+    }
+
+    /**
+     * Determines if the direction moves numbers along the rows of the board.
+     *
+     * @return whether the direction is left or right
+     */
+    public boolean isHorizontal() {
+        return rowStep == 0;
+    }
+
+    /**
+     * A method to get the direction matching a name such as "left" or "UP".
+     *
+     * @param direction The name of the direction
+     * @return the matching direction
+     */
+    public static Direction fromString(String direction) {
+        return switch (direction.toLowerCase()) {
+            case "left" -> LEFT;
+            case "right" -> RIGHT;
+            case "up" -> UP;
+            case "down" -> DOWN;
+            default -> throw new IllegalArgumentException("Invalid Direction");
+        };
+    }
+}
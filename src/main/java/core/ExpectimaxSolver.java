@@ -0,0 +1,396 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A solver that picks moves with an expectimax search over the numbers that can be added after each move. <br>
+ * Each of the four moves from the root board is searched on its own thread of a {@link ForkJoinPool},
+ * and the threads share a {@link TranspositionTable}. 4x4 boards are searched packed into a {@link Bitboard}.
+ *
+ * @author Evan Razzaque
+ */
+public class ExpectimaxSolver implements Strategy {
+    /**
+     * The chance of a 2 being added, matching {@link GameEngine#spawn(BoardState)}
+     */
+    private static final double TWO_PROBABILITY = 0.9;
+
+    /**
+     * The chance of a 4 being added, matching {@link GameEngine#spawn(BoardState)}
+     */
+    private static final double FOUR_PROBABILITY = 0.1;
+
+    /**
+     * Boards reached with a lower probability than this are evaluated instead of searched
+     */
+    private static final double PROBABILITY_CUTOFF = 0.0001;
+
+    /**
+     * The most empty cells a chance node tries adding numbers to, so large grids stay searchable
+     */
+    private static final int MAX_SPAWN_CELLS = 16;
+
+    /**
+     * The number of moves to search ahead
+     */
+    private final int depth;
+
+    /**
+     * The pool the root moves are searched on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The table of boards that have already been evaluated
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The size of the grid the table's values were searched on
+     */
+    private volatile int tableGridSize;
+
+    /**
+     * The number of boards visited by the search
+     */
+    private final LongAdder nodes = new LongAdder();
+
+    /**
+     * The search buffers of each thread
+     */
+    private final ThreadLocal<Searcher> searchers = new ThreadLocal<>();
+
+    /**
+     * A constructor for a solver that searches 3 moves ahead on every processor.
+     */
+    public ExpectimaxSolver() {
+        this(3, Runtime.getRuntime().availableProcessors(), 20);
+    }
+
+    /**
+     * A constructor for a solver.
+     *
+     * @param depth The number of moves to search ahead
+     * @param parallelism The number of threads to search with
+     * @param tableBits The base 2 logarithm of the number of transposition table entries
+     */
+    public ExpectimaxSolver(int depth, int parallelism, int tableBits) {
+        if (depth < 1)
+            throw new IllegalArgumentException("Depth cannot be less than 1");
+
+        this.depth = depth;
+        pool = new ForkJoinPool(parallelism);
+        table = new TranspositionTable(tableBits);
+    }
+
+    /**
+     * Gets the number of boards visited by the solver.
+     *
+     * @return the number of nodes searched
+     */
+    @Override
+    public long getNodeCount() {
+        return nodes.sum();
+    }
+
+    /**
+     * A method to find the best move for a board.
+     *
+     * @param board The board to find a move for, which is not modified
+     * @return the best move, or null if no move can be made
+     */
+    @Override
+    public Direction suggestMove(BoardState board) {
+        // Searches 4x4 boards packed, unless a move could combine tiles into one too large for a bitboard
+        if (Bitboard.canPack(board)) {
+            long packed = Bitboard.pack(board);
+            if (!Bitboard.canOverflow(packed)) return suggestMove(packed);
+        }
+
+        useTable(board.getGridSize());
+        List<Callable<Double>> tasks = new ArrayList<>(4);
+
+        for (Direction direction : Direction.values())
+            tasks.add(() -> searcher(board.getGridSize()).searchRoot(board, direction));
+
+        return bestMove(tasks);
+    }
+
+    /**
+     * A method to find the best move for a board packed into a {@link Bitboard}.
+     *
+     * @param board The board to find a move for, on which no move can overflow a cell ({@link Bitboard#canOverflow})
+     * @return the best move, or null if no move can be made
+     */
+    @Override
+    public Direction suggestMove(long board) {
+        useTable(Bitboard.SIZE);
+        List<Callable<Double>> tasks = new ArrayList<>(4);
+
+        for (Direction direction : Direction.values())
+            tasks.add(() -> searcher(Bitboard.SIZE).searchRoot(board, direction));
+
+        return bestMove(tasks);
+    }
+
+    /**
+     * A method to clear the transposition table if its values were searched on another grid size.
+     *
+     * @param gridSize The size of the grid about to be searched
+     */
+    private void useTable(int gridSize) {
+        // Values from another grid size can never be reused, so they are dropped to make room for this one
+        if (gridSize != tableGridSize) {
+            table.clear();
+            tableGridSize = gridSize;
+        }
+    }
+
+    /**
+     * A method to search every root move and pick the one with the highest value.
+     *
+     * @param tasks The search of each move, in the order of {@link Direction#values()}
+     * @return the best move, or null if no move can be made
+     */
+    private Direction bestMove(List<Callable<Double>> tasks) {
+        Direction best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        List<Future<Double>> values = pool.invokeAll(tasks);
+
+        for (int i = 0; i < values.size(); i++) {
+            double value = values.get(i).resultNow();
+
+            if (!Double.isNaN(value) && value > bestValue) {
+                bestValue = value;
+                best = Direction.values()[i];
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Gets the search buffers of the current thread for a grid size.
+     *
+     * @param gridSize The size of the grid being searched
+     * @return the thread's searcher
+     */
+    private Searcher searcher(int gridSize) {
+        Searcher searcher = searchers.get();
+
+        if (searcher == null || searcher.engine.getGridSize() != gridSize) {
+            searcher = new Searcher(gridSize);
+            searchers.set(searcher);
+        }
+
+        return searcher;
+    }
+
+    /**
+     * A method to stop the solver's threads.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * The engine and board buffers a single thread searches with.
+     */
+    private class Searcher {
+        /**
+         * The engine used to perform moves
+         */
+        private final GameEngine engine;
+
+        /**
+         * A board for each level of the search (indexed by the moves left), so searching does not allocate
+         */
+        private final BoardState[] boards;
+
+        /**
+         * The empty cells of each level of the search
+         */
+        private final int[][] emptyCells;
+
+        /**
+         * A constructor for a searcher.
+         *
+         * @param gridSize The size of the grid being searched
+         */
+        Searcher(int gridSize) {
+            engine = new GameEngine(gridSize);
+            boards = new BoardState[depth + 1];
+            emptyCells = new int[depth][gridSize * gridSize];
+
+            for (int i = 1; i <= depth; i++) boards[i] = new BoardState(gridSize);
+        }
+
+        /**
+         * A method to search a single move from the root board.
+         *
+         * @param root The root board
+         * @param direction The move to search
+         * @return the expected value of the move, or NaN if the move cannot be made
+         */
+        double searchRoot(BoardState root, Direction direction) {
+            if (!root.canMove(direction)) return Double.NaN;
+
+            BoardState board = boards[depth];
+            board.copyFrom(root);
+            nodes.increment();
+            engine.move(board, direction);
+
+            return chance(board, depth - 1, 1.0);
+        }
+
+        /**
+         * A method to search a single move from a root board packed into a {@link Bitboard}.
+         *
+         * @param root The root board
+         * @param direction The move to search
+         * @return the expected value of the move, or NaN if the move cannot be made
+         */
+        double searchRoot(long root, Direction direction) {
+            long board = Bitboard.move(root, direction);
+            if (board == root || board == Bitboard.OVERFLOW) return Double.NaN;
+
+            nodes.increment();
+
+            return chance(board, depth - 1, 1.0);
+        }
+
+        /**
+         * A method to find the value of the best move from a board.
+         *
+         * @param board The board to move
+         * @param depth The number of moves left to search
+         * @param probability The probability of reaching the board
+         * @return the value of the best move, or 0 if no move can be made
+         */
+        private double max(BoardState board, int depth, double probability) {
+            BoardState next = boards[depth];
+            double best = 0;
+
+            for (Direction direction : Direction.values()) {
+                // Skips copying the board for moves that would not change it
+                if (!board.canMove(direction)) continue;
+
+                next.copyFrom(board);
+                nodes.increment();
+                engine.move(next, direction);
+                best = Math.max(best, chance(next, depth - 1, probability));
+            }
+
+            return best;
+        }
+
+        /**
+         * A method to find the expected value of a board over the numbers that can be added to it.
+         *
+         * @param board The board to add numbers to
+         * @param depth The number of moves left to search
+         * @param probability The probability of reaching the board
+         * @return the expected value of the board
+         */
+        private double chance(BoardState board, int depth, double probability) {
+            if (depth == 0 || probability < PROBABILITY_CUTOFF) return Heuristic.evaluate(board);
+
+            long hash = board.hash();
+            double cached = table.get(hash, depth);
+            if (!Double.isNaN(cached)) return cached;
+
+            // Copies the empty cells, since adding and removing numbers reorders the board's free cells
+            int[] empty = emptyCells[depth];
+            int emptyCount = board.getFreeCount();
+            for (int i = 0; i < emptyCount; i++) empty[i] = board.getFreeCell(i);
+
+            if (emptyCount == 0) return Heuristic.evaluate(board);
+
+            // Large grids only try an evenly spread sample of their empty cells
+            int stride = (emptyCount + MAX_SPAWN_CELLS - 1) / MAX_SPAWN_CELLS;
+            int samples = 0;
+            double total = 0;
+
+            for (int i = 0; i < emptyCount; i += stride) {
+                int cell = empty[i];
+                samples++;
+
+                board.setExponent(cell, 1);
+                total += TWO_PROBABILITY * max(board, depth, probability * TWO_PROBABILITY / emptyCount);
+
+                board.setExponent(cell, 2);
+                total += FOUR_PROBABILITY * max(board, depth, probability * FOUR_PROBABILITY / emptyCount);
+
+                board.setExponent(cell, 0);
+            }
+
+            double value = total / samples;
+            table.put(hash, depth, value);
+
+            return value;
+        }
+
+        /**
+         * A method to find the value of the best move from a board packed into a {@link Bitboard}. <br>
+         * Moves that would overflow a cell are not searched.
+         *
+         * @param board The board to move
+         * @param depth The number of moves left to search
+         * @param probability The probability of reaching the board
+         * @return the value of the best move, or 0 if no move can be made
+         */
+        private double max(long board, int depth, double probability) {
+            double best = 0;
+
+            for (Direction direction : Direction.values()) {
+                long next = Bitboard.move(board, direction);
+                if (next == board || next == Bitboard.OVERFLOW) continue;
+
+                nodes.increment();
+                best = Math.max(best, chance(next, depth - 1, probability));
+            }
+
+            return best;
+        }
+
+        /**
+         * A method to find the expected value of a board packed into a {@link Bitboard}
+         * over the numbers that can be added to it.
+         *
+         * @param board The board to add numbers to
+         * @param depth The number of moves left to search
+         * @param probability The probability of reaching the board
+         * @return the expected value of the board
+         */
+        private double chance(long board, int depth, double probability) {
+            if (depth == 0 || probability < PROBABILITY_CUTOFF) return Heuristic.evaluate(board);
+
+            long hash = Bitboard.hash(board);
+            double cached = table.get(hash, depth);
+            if (!Double.isNaN(cached)) return cached;
+
+            int emptyCount = Bitboard.countEmpty(board);
+            if (emptyCount == 0) return Heuristic.evaluate(board);
+
+            double total = 0;
+
+            for (int index = 0; index < Bitboard.SIZE * Bitboard.SIZE; index++) {
+                if (Bitboard.getExponent(board, index) != 0) continue;
+
+                total += TWO_PROBABILITY * max(board | 1L << (4 * index), depth, probability * TWO_PROBABILITY / emptyCount);
+                total += FOUR_PROBABILITY * max(board | 2L << (4 * index), depth, probability * FOUR_PROBABILITY / emptyCount);
+            }
+
+            double value = total / emptyCount;
+            table.put(hash, depth, value);
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package core;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+/**
+ * Performs the game logic of 2048 on a {@link BoardState} without rendering anything. <br>
+ * An engine reuses its buffers between moves, so each thread should use its own instance.
+ * 4x4 games can also be played on a {@link Bitboard}, with the engine adding their numbers.
+ *
+ * @author Evan Razzaque
+ */
+public class GameEngine {
+    /**
+     * The exponent of the tile needed to win the game (2048)
+     */
+    public static final int WINNING_EXPONENT = 11;
+
+    /**
+     * The smallest grid size whose lines are moved in parallel by default
+     */
+    public static final int PARALLEL_MIN_SIZE = 64;
+
+    /**
+     * The system property that chooses at startup whether lines are slid with the Vector API kernel by default
+     * ({@code true} or {@code false}), which is only used when the {@code jdk.incubator.vector} module was added
+     */
+    public static final String VECTOR_MOVES_PROPERTY = "2048.vectorMoves";
+
+    /**
+     * The name of the module of the Vector API
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Whether new engines slide lines with the Vector API kernel
+     */
+    private static final boolean VECTOR_MOVES = isVectorMovesSupported()
+        && Boolean.parseBoolean(System.getProperty(VECTOR_MOVES_PROPERTY, "true"));
+
+    /**
+     * The number of entries (as a power of two) in the line cache of small grids
+     */
+    private static final int LINE_CACHE_BITS = 16;
+
+    /**
+     * The size of the grid the engine moves numbers on
+     */
+    private final int gridSize;
+
+    /**
+     * Stores the exponents of a single line after it has been moved
+     */
+    private final byte[] line;
+
+    /**
+     * Stores where each cell of a line ended up, or -1 for an empty cell
+     */
+    private final int[] destinations;
+
+    /**
+     * Stores which cells of a moved line were combined
+     */
+    private final boolean[] combined;
+
+    /**
+     * The result of the latest move
+     */
+    private final MoveResult result;
+
+    /**
+     * Whether lines are moved through the {@link Bitboard} lookup tables
+     */
+    private final boolean useRowTables;
+
+    /**
+     * The cache of moved lines, or null if lines are not cached
+     */
+    private final LineCache lineCache;
+
+    /**
+     * The kernel that slides and combines the numbers of a line
+     */
+    private LineSlider slider;
+
+    /**
+     * Whether {@link #slider} is the Vector API kernel
+     */
+    private boolean vectorMoves;
+
+    /**
+     * Moves the lines on several threads, or null if lines are moved one after another
+     */
+    private ParallelLineMover parallelMover;
+
+    /**
+     * The random number generator used to add numbers
+     */
+    private RandomGenerator random = new SplittableRandom();
+
+    /**
+     * A constructor for a game engine. <br>
+     * Moved lines are cached for grids up to 12x12, and lines are moved in parallel for grids
+     * of at least {@link #PARALLEL_MIN_SIZE}x{@link #PARALLEL_MIN_SIZE}.
+     *
+     * @param gridSize The size of the grid the engine moves numbers on
+     */
+    public GameEngine(int gridSize) {
+        this(gridSize, gridSize <= LineCache.MAX_SIZE);
+    }
+
+    /**
+     * A constructor for a game engine.
+     *
+     * @param gridSize The size of the grid the engine moves numbers on
+     * @param cacheLines Whether moved lines should be cached, which is ignored for grids larger than 12x12
+     */
+    public GameEngine(int gridSize, boolean cacheLines) {
+        this(gridSize, cacheLines, gridSize >= PARALLEL_MIN_SIZE);
+    }
+
+    /**
+     * A constructor for a game engine that chooses whether lines are moved in parallel up front,
+     * so an engine that never moves lines in parallel does not allocate the buffers for it.
+     *
+     * @param gridSize The size of the grid the engine moves numbers on
+     * @param cacheLines Whether moved lines should be cached, which is ignored for grids larger than 12x12
+     * @param parallel Whether lines are moved in parallel
+     * @see #setParallel(boolean)
+     */
+    public GameEngine(int gridSize, boolean cacheLines, boolean parallel) {
+        if (gridSize < 2)
+            throw new IllegalArgumentException("Grid size cannot be less than 2");
+
+        this.gridSize = gridSize;
+        line = new byte[gridSize];
+        destinations = new int[gridSize];
+        combined = new boolean[gridSize];
+        result = new MoveResult(gridSize);
+        useRowTables = gridSize == Bitboard.SIZE;
+        lineCache = cacheLines && gridSize <= LineCache.MAX_SIZE ? new LineCache(LINE_CACHE_BITS) : null;
+        parallelMover = parallel ? new ParallelLineMover(gridSize, ForkJoinPool.commonPool()) : null;
+        vectorMoves = VECTOR_MOVES;
+        slider = vectorMoves ? new VectorLineSlider(gridSize) : GameEngine::slideLine;
+    }
+
+    /**
+     * Gets the grid size.
+     *
+     * @return the size of the grid
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Determines if the Vector API kernel can be used, which needs the {@code jdk.incubator.vector} module
+     * to be added with {@code --add-modules jdk.incubator.vector}.
+     *
+     * @return whether lines can be slid with the Vector API
+     */
+    public static boolean isVectorMovesSupported() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    /**
+     * Determines if lines are slid with the Vector API kernel instead of one cell at a time.
+     *
+     * @return whether lines are slid with the Vector API
+     */
+    public boolean isVectorMoves() {
+        return vectorMoves;
+    }
+
+    /**
+     * Sets whether lines are slid with the Vector API kernel instead of one cell at a time. <br>
+     * Both kernels give exactly the same moves. The default is chosen at startup
+     * with the {@value #VECTOR_MOVES_PROPERTY} system property.
+     *
+     * @param vectorMoves Whether lines should be slid with the Vector API
+     * @throws IllegalArgumentException If the Vector API kernel is chosen but {@link #isVectorMovesSupported()} is false
+     */
+    public void setVectorMoves(boolean vectorMoves) {
+        if (vectorMoves && !isVectorMovesSupported())
+            throw new IllegalArgumentException("The " + VECTOR_MODULE + " module was not added");
+
+        this.vectorMoves = vectorMoves;
+        slider = vectorMoves ? new VectorLineSlider(gridSize) : GameEngine::slideLine;
+    }
+
+    /**
+     * Determines if the lines of a move are split across the threads of a {@link ForkJoinPool}.
+     *
+     * @return whether lines are moved in parallel
+     */
+    public boolean isParallel() {
+        return parallelMover != null;
+    }
+
+    /**
+     * Sets whether the lines of a move are split across the threads of the common {@link ForkJoinPool}. <br>
+     * Moving in parallel gives the same board and result as moving the lines one after another,
+     * but only pays off on large grids, and is best turned off when many engines already run on separate threads.
+     *
+     * @param parallel Whether lines should be moved in parallel
+     */
+    public void setParallel(boolean parallel) {
+        if (parallel == isParallel()) return;
+
+        parallelMover = parallel ? new ParallelLineMover(gridSize, ForkJoinPool.commonPool()) : null;
+    }
+
+    /**
+     * A method to move the numbers on a board in a given direction.
+     *
+     * @param board The board to move the numbers on
+     * @param direction The direction to move the numbers in
+     * @return the result of the move, which is reused by the next call
+     */
+    public MoveResult move(BoardState board, Direction direction) {
+        if (board.getGridSize() != gridSize)
+            throw new IllegalArgumentException("Grid sizes do not match");
+
+        result.reset();
+
+        // Leaves the board untouched if nothing would move
+        if (!board.canMove(direction)) {
+            result.setMoved(false);
+            return result;
+        }
+
+        // Each line starts at the wall the numbers are moving towards and steps away from it
+        int lineStep = direction.isHorizontal() ? gridSize : 1;
+        int cellStep = -(direction.getRowStep() * gridSize + direction.getColStep());
+        int first = switch (direction) {
+            case LEFT, UP -> 0;
+            case RIGHT -> gridSize - 1;
+            case DOWN -> (gridSize - 1) * gridSize;
+        };
+
+        boolean moved = false;
+        if (parallelMover != null) {
+            moved = parallelMover.move(board, first, lineStep, cellStep, slider, result);
+        } else {
+            for (int i = 0; i < gridSize; i++) {
+                if (moveLine(board, first + i * lineStep, cellStep)) moved = true;
+            }
+        }
+
+        if (result.getScoreDelta() > 0) board.addScore(result.getScoreDelta());
+        result.setMoved(moved);
+
+        return result;
+    }
+
+    /**
+     * Determines if moving the numbers on a board in a given direction would change it.
+     *
+     * @param board The board to check
+     * @param direction The direction to move the numbers in
+     * @return whether the move can be made
+     */
+    public boolean canMove(BoardState board, Direction direction) {
+        return board.canMove(direction);
+    }
+
+    /**
+     * A method to move the numbers of a single line.
+     *
+     * @param board The board containing the line
+     * @param start The cell of the line next to the wall the numbers move towards
+     * @param step The index offset between neighbouring cells of the line, moving away from the wall
+     * @return whether any number in the line changed
+     */
+    private boolean moveLine(BoardState board, int start, int step) {
+        if (useRowTables) {
+            int changed = Bitboard.moveLine(board, start, step, result);
+            if (changed != Bitboard.LINE_UNSUPPORTED) return changed == Bitboard.LINE_CHANGED;
+        }
+
+        long key = lineCache == null ? -1 : LineCache.key(board, start, step, gridSize);
+
+        if (key == -1) {
+            slider.slide(board, start, step, line, destinations, combined);
+        } else if (!lineCache.load(key, line, destinations, combined)) {
+            slider.slide(board, start, step, line, destinations, combined);
+            lineCache.store(key, line, destinations, combined);
+        }
+
+        return applyLine(board, start, step);
+    }
+
+    /**
+     * A method to slide and combine the numbers of a single line in one pass, storing the outcome in line buffers.
+     *
+     * @param board The board containing the line
+     * @param start The cell of the line next to the wall the numbers move towards
+     * @param step The index offset between neighbouring cells of the line, moving away from the wall
+     * @param line The buffer to store the moved line in, which is as long as the line
+     * @param destinations The buffer to store where each cell ended up in (-1 for an empty cell)
+     * @param combined The buffer to store which cells of the moved line were combined in
+     */
+    static void slideLine(BoardState board, int start, int step, byte[] line, int[] destinations, boolean[] combined) {
+        int target = 0;
+        int pending = 0;
+
+        for (int i = 0; i < line.length; i++) {
+            line[i] = 0;
+            combined[i] = false;
+
+            int exponent = board.getExponent(start + i * step);
+            if (exponent == 0) {
+                destinations[i] = -1;
+            } else if (exponent == pending) {
+                // Combining numbers
+                line[target - 1] = (byte) (exponent + 1);
+                combined[target - 1] = true;
+                destinations[i] = target - 1;
+                pending = 0;
+            } else {
+                line[target] = (byte) exponent;
+                destinations[i] = target++;
+                pending = exponent;
+            }
+        }
+    }
+
+    /**
+     * A method to record the tiles of a moved line and write the cells that changed back to the board.
+     *
+     * @param board The board containing the line
+     * @param start The cell of the line next to the wall the numbers move towards
+     * @param step The index offset between neighbouring cells of the line, moving away from the wall
+     * @return whether any number in the line changed
+     */
+    private boolean applyLine(BoardState board, int start, int step) {
+        for (int i = 0; i < gridSize; i++) {
+            if (destinations[i] >= 0)
+                result.addTile(start + i * step, start + destinations[i] * step, board.getExponent(start + i * step));
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < gridSize; i++) {
+            int cell = start + i * step;
+
+            if (combined[i]) {
+                result.addMerge(line[i]);
+                if (line[i] == WINNING_EXPONENT && !board.getHasWon()) board.setHasWon(true);
+            }
+
+            if (board.getExponent(cell) != line[i]) {
+                board.setExponent(cell, line[i]);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Gets the random number generator used to add numbers.
+     *
+     * @return the random number generator
+     */
+    public RandomGenerator getRandom() {
+        return random;
+    }
+
+    /**
+     * Sets the random number generator used to add numbers, such as a seeded {@link SplittableRandom}.
+     *
+     * @param random The random number generator to use
+     */
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * A method to add a number with a random empty location and with a value of 2 or 4.
+     *
+     * @param board The board to add the number to
+     * @return the cell the number was added to, or -1 if the board is full
+     */
+    public int spawn(BoardState board) {
+        return spawn(board, random);
+    }
+
+    /**
+     * A method to add a number with a random empty location and with a value of 2 or 4.
+     *
+     * @param board The board to add the number to
+     * @param random The random number generator to use
+     * @return the cell the number was added to, or -1 if the board is full
+     */
+    public int spawn(BoardState board, RandomGenerator random) {
+        if (board.isFull()) return -1;
+
+        int exponent = 1;
+        if (random.nextInt(100) < 10) exponent = 2;
+
+        int cell = board.getFreeCell(random.nextInt(board.getFreeCount()));
+        board.setExponent(cell, exponent);
+
+        return cell;
+    }
+
+    /**
+     * A method to add a number with a random empty location and with a value of 2 or 4
+     * to a board packed into a {@link Bitboard}.
+     *
+     * @param board The board to add the number to
+     * @return the board with the number added, or the same board if it is full
+     */
+    public long spawn(long board) {
+        return Bitboard.spawn(board, random);
+    }
+}
@@ -0,0 +1,236 @@
+package core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A writer of finished games, such as the games played by a simulation. <br>
+ * A file ending in {@code .csv} is written as comma separated text with a header row.
+ * Any other file is written column by column: a header (magic number, version and column count)
+ * followed by row groups of up to {@link #ROW_GROUP_SIZE} games. Each row group is its number of rows,
+ * every value of each column in the order below, and a CRC32 checksum of the group:
+ * <ul>
+ *   <li>the grid size ({@code int})</li>
+ *   <li>the seed of the added numbers ({@code long})</li>
+ *   <li>the final score ({@code long})</li>
+ *   <li>the exponent of the largest number ({@code byte})</li>
+ *   <li>the number of moves ({@code int})</li>
+ *   <li>the duration of the game in nanoseconds ({@code long})</li>
+ * </ul>
+ * An instance should only be used by one thread at a time.
+ *
+ * @author Evan Razzaque
+ */
+public class GameResultWriter implements AutoCloseable {
+    /**
+     * The number every columnar file starts with ("2RES" in ASCII)
+     */
+    public static final int MAGIC = 0x32524553;
+
+    /**
+     * The version of the columnar format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The most games stored in a row group
+     */
+    public static final int ROW_GROUP_SIZE = 4096;
+
+    /**
+     * The number of columns
+     */
+    private static final int COLUMN_COUNT = 6;
+
+    /**
+     * The number of bytes each game takes up across all columns
+     */
+    private static final int ROW_BYTES = Integer.BYTES + Long.BYTES + Long.BYTES + 1 + Integer.BYTES + Long.BYTES;
+
+    /**
+     * The header row of a CSV file
+     */
+    private static final String CSV_HEADER = "gridSize,seed,score,maxExponent,moves,durationNanos\n";
+
+    /**
+     * The file being written to
+     */
+    private final FileChannel channel;
+
+    /**
+     * Whether the file is written as CSV instead of column by column
+     */
+    private final boolean csv;
+
+    /**
+     * The buffer a row group is encoded into before it is written
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The grid size of each buffered game
+     */
+    private final int[] gridSizes = new int[ROW_GROUP_SIZE];
+
+    /**
+     * The seed of each buffered game
+     */
+    private final long[] seeds = new long[ROW_GROUP_SIZE];
+
+    /**
+     * The final score of each buffered game
+     */
+    private final long[] scores = new long[ROW_GROUP_SIZE];
+
+    /**
+     * The exponent of the largest number of each buffered game
+     */
+    private final byte[] maxExponents = new byte[ROW_GROUP_SIZE];
+
+    /**
+     * The number of moves of each buffered game
+     */
+    private final int[] moves = new int[ROW_GROUP_SIZE];
+
+    /**
+     * The duration (in nanoseconds) of each buffered game
+     */
+    private final long[] durations = new long[ROW_GROUP_SIZE];
+
+    /**
+     * The number of buffered games
+     */
+    private int rows;
+
+    /**
+     * A constructor to create a result file, replacing any existing file.
+     *
+     * @param path The file to write to, which is written as CSV if it ends in {@code .csv}
+     */
+    public GameResultWriter(Path path) {
+        csv = path.getFileName().toString().endsWith(".csv");
+
+        try {
+            channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+            if (csv) {
+                buffer = null;
+                write(ByteBuffer.wrap(CSV_HEADER.getBytes(StandardCharsets.US_ASCII)));
+            } else {
+                buffer = ByteBuffer.allocate(Integer.BYTES + ROW_GROUP_SIZE * ROW_BYTES + Integer.BYTES);
+                write(ByteBuffer.allocate(Integer.BYTES + 2).putInt(MAGIC).put((byte) VERSION).put((byte) COLUMN_COUNT).flip());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A method to add a finished game, writing the row group if it is full.
+     *
+     * @param gridSize The size of the grid
+     * @param seed The seed of the added numbers
+     * @param score The final score
+     * @param maxExponent The exponent of the largest number
+     * @param moveCount The number of moves
+     * @param durationNanos The duration of the game in nanoseconds
+     */
+    public void write(int gridSize, long seed, long score, int maxExponent, int moveCount, long durationNanos) {
+        gridSizes[rows] = gridSize;
+        seeds[rows] = seed;
+        scores[rows] = score;
+        maxExponents[rows] = (byte) maxExponent;
+        moves[rows] = moveCount;
+        durations[rows] = durationNanos;
+
+        if (++rows == ROW_GROUP_SIZE) flush();
+    }
+
+    /**
+     * A method to write the buffered games.
+     */
+    public void flush() {
+        if (rows == 0) return;
+
+        try {
+            write(csv ? encodeCsv() : encodeRowGroup());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        rows = 0;
+    }
+
+    /**
+     * A method to write the buffered games and close the file.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * A method to encode the buffered games as a row group.
+     *
+     * @return the row group, ready to be written
+     */
+    private ByteBuffer encodeRowGroup() {
+        buffer.clear().putInt(rows);
+
+        for (int i = 0; i < rows; i++) buffer.putInt(gridSizes[i]);
+        for (int i = 0; i < rows; i++) buffer.putLong(seeds[i]);
+        for (int i = 0; i < rows; i++) buffer.putLong(scores[i]);
+        buffer.put(maxExponents, 0, rows);
+        for (int i = 0; i < rows; i++) buffer.putInt(moves[i]);
+        for (int i = 0; i < rows; i++) buffer.putLong(durations[i]);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, buffer.position()));
+
+        return buffer.putInt((int) crc.getValue()).flip();
+    }
+
+    /**
+     * A method to encode the buffered games as CSV rows.
+     *
+     * @return the rows, ready to be written
+     */
+    private ByteBuffer encodeCsv() {
+        StringBuilder text = new StringBuilder(rows * 48);
+
+        for (int i = 0; i < rows; i++) {
+            text.append(gridSizes[i]).append(',')
+                .append(seeds[i]).append(',')
+                .append(scores[i]).append(',')
+                .append(maxExponents[i]).append(',')
+                .append(moves[i]).append(',')
+                .append(durations[i]).append('\n');
+        }
+
+        return ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * A method to write the whole of a buffer to the file.
+     *
+     * @param contents The contents to write
+     * @throws IOException If the file could not be written
+     */
+    private void write(ByteBuffer contents) throws IOException {
+        while (contents.hasRemaining()) channel.write(contents);
+    }
+}
@@ -0,0 +1,117 @@
+package core;
+
+import java.util.SplittableRandom;
+
+/**
+ * A game of 2048 without a display: a board with its engine and undo history, as a game server hosts for each player. <br>
+ * Sessions are kept small so that many of them fit in memory: moved lines are not cached and are always moved
+ * on the calling thread. An instance should only be used by one thread at a time.
+ *
+ * @author Evan Razzaque
+ */
+public final class GameSession {
+    /**
+     * The numbers, score and state of the game
+     */
+    private final BoardState board;
+
+    /**
+     * The engine the game is played with
+     */
+    private final GameEngine engine;
+
+    /**
+     * The previous states of the game
+     */
+    private final UndoHistory history;
+
+    /**
+     * A constructor for a new game, which starts with two numbers.
+     *
+     * @param gridSize The size of the grid
+     * @param undoLimit The maximum amount of moves that can be undone
+     * @param seed The seed of the added numbers
+     */
+    public GameSession(int gridSize, int undoLimit, long seed) {
+        this(new BoardState(gridSize), undoLimit, seed);
+
+        restart();
+    }
+
+    /**
+     * A constructor to continue a game from a board, such as a loaded save.
+     *
+     * @param board The board the game is at, which the session takes ownership of
+     * @param undoLimit The maximum amount of moves that can be undone
+     * @param seed The seed of the added numbers
+     */
+    public GameSession(BoardState board, int undoLimit, long seed) {
+        this.board = board;
+        engine = new GameEngine(board.getGridSize(), false, false);
+        engine.setRandom(new SplittableRandom(seed));
+        history = new UndoHistory(board.getGridSize(), undoLimit);
+        history.reset(board);
+    }
+
+    /**
+     * A method to move the numbers in a given direction and add a number.
+     *
+     * @param direction The direction to move the numbers in
+     * @return the result of the move, which is reused by the next move, or null if the move cannot be made
+     */
+    public MoveResult move(Direction direction) {
+        if (!engine.canMove(board, direction)) return null;
+
+        history.push(board);
+        MoveResult result = engine.move(board, direction);
+        engine.spawn(board);
+
+        return result;
+    }
+
+    /**
+     * A method to undo the latest move.
+     *
+     * @return whether a move was undone
+     */
+    public boolean undo() {
+        return history.undo(board);
+    }
+
+    /**
+     * A method to redo the latest undone move.
+     *
+     * @return whether a move was redone
+     */
+    public boolean redo() {
+        return history.redo(board);
+    }
+
+    /**
+     * A method to start a new game with the same grid size, keeping the high score.
+     */
+    public void restart() {
+        board.clear();
+        engine.spawn(board);
+        engine.spawn(board);
+        history.reset(board);
+    }
+
+    /**
+     * Gets the board of the game, which must not be changed directly.
+     *
+     * @return the board
+     */
+    public BoardState getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the grid size.
+     *
+     * @return the size of the grid
+     */
+    public int getGridSize() {
+        return board.getGridSize();
+    }
+}
@@ -0,0 +1,94 @@
+package core;
+
+/**
+ * A strategy that makes the move whose board the {@link Heuristic} rates highest, without looking further ahead. <br>
+ * An instance should only be used by one thread at a time.
+ *
+ * @author Evan Razzaque
+ */
+public class GreedyStrategy implements Strategy {
+    /**
+     * The engine used to try each move, which is replaced when the grid size changes
+     */
+    private GameEngine engine;
+
+    /**
+     * The board each move is tried on
+     */
+    private BoardState next;
+
+    /**
+     * The number of boards evaluated
+     */
+    private long nodes;
+
+    /**
+     * A method to choose the move with the best evaluation.
+     *
+     * @param board The board to choose a move for, which is not modified
+     * @return the chosen move, or null if no move can be made
+     */
+    @Override
+    public Direction suggestMove(BoardState board) {
+        if (engine == null || engine.getGridSize() != board.getGridSize()) {
+            engine = new GameEngine(board.getGridSize());
+            next = new BoardState(board.getGridSize());
+        }
+
+        Direction best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+
+        for (Direction direction : Direction.values()) {
+            if (!board.canMove(direction)) continue;
+
+            next.copyFrom(board);
+            engine.move(next, direction);
+            nodes++;
+
+            double value = Heuristic.evaluate(next);
+            if (value > bestValue) {
+                bestValue = value;
+                best = direction;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * A method to choose the move with the best evaluation for a board packed into a {@link Bitboard}.
+     *
+     * @param board The board to choose a move for, on which no move can overflow a cell ({@link Bitboard#canOverflow})
+     * @return the chosen move, or null if no move can be made
+     */
+    @Override
+    public Direction suggestMove(long board) {
+        Direction best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+
+        for (Direction direction : Direction.values()) {
+            long next = Bitboard.move(board, direction);
+            if (next == board) continue;
+
+            nodes++;
+
+            double value = Heuristic.evaluate(next);
+            if (value > bestValue) {
+                bestValue = value;
+                best = direction;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Gets the number of boards evaluated.
+     *
+     * @return the number of boards evaluated
+     */
+    @Override
+    public long getNodeCount() {
+        return nodes;
+    }
+}
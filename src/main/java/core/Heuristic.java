@@ -0,0 +1,156 @@
+package core;
+
+/**
+ * A heuristic used to estimate how good a board is for the player. <br>
+ * Boards score higher when they have more empty cells, more possible combinations,
+ * and rows and columns whose numbers increase or decrease steadily.
+ *
+ * @author Evan Razzaque
+ */
+public final class Heuristic {
+    /**
+     * The weight of each empty cell
+     */
+    private static final double EMPTY_WEIGHT = 270.0;
+
+    /**
+     * The weight of each pair of neighbouring numbers that can be combined
+     */
+    private static final double MERGE_WEIGHT = 700.0;
+
+    /**
+     * The weight of the penalty for rows and columns that are not monotonic
+     */
+    private static final double MONOTONICITY_WEIGHT = 47.0;
+
+    /**
+     * The weight of the penalty for large numbers, which favours combining them
+     */
+    private static final double SUM_WEIGHT = 11.0;
+
+    /**
+     * A base value that keeps evaluations positive
+     */
+    private static final double BASE_SCORE = 200_000.0;
+
+    /**
+     * Each exponent raised to the power used by the monotonicity penalty
+     */
+    private static final double[] MONOTONICITY_POWERS = new double[128];
+
+    /**
+     * Each exponent raised to the power used by the sum penalty
+     */
+    private static final double[] SUM_POWERS = new double[128];
+
+    /**
+     * The value of each possible line of a {@link Bitboard}
+     */
+    private static final double[] LINE_VALUES = new double[1 << 16];
+
+    static {
+        for (int exponent = 0; exponent < 128; exponent++) {
+            MONOTONICITY_POWERS[exponent] = Math.pow(exponent, 4.0);
+            SUM_POWERS[exponent] = Math.pow(exponent, 3.5);
+        }
+
+        // Evaluates each line as the first row of a board, so both ways of evaluating a board agree
+        BoardState line = new BoardState(Bitboard.SIZE);
+        for (int row = 0; row < 1 << 16; row++) {
+            for (int i = 0; i < Bitboard.SIZE; i++) line.setExponent(i, (row >>> (4 * i)) & 0xF);
+
+            LINE_VALUES[row] = evaluateLine(line, 0, 1, Bitboard.SIZE);
+        }
+    }
+
+    /**
+     * Heuristics only contain static methods.
+     */
+    private Heuristic() {
+    }
+
+    /**
+     * A method to evaluate a board.
+     *
+     * @param board The board to evaluate
+     * @return the estimated value of the board
+     */
+    public static double evaluate(BoardState board) {
+        int gridSize = board.getGridSize();
+        double score = 0;
+
+        for (int i = 0; i < gridSize; i++) {
+            score += evaluateLine(board, i * gridSize, 1, gridSize);
+            score += evaluateLine(board, i, gridSize, gridSize);
+        }
+
+        return score;
+    }
+
+    /**
+     * A method to evaluate a board packed into a {@link Bitboard}, which gives the same value as
+     * evaluating the unpacked board.
+     *
+     * @param board The board to evaluate
+     * @return the estimated value of the board
+     */
+    public static double evaluate(long board) {
+        long columns = Bitboard.transpose(board);
+        double score = 0;
+
+        for (int i = 0; i < Bitboard.SIZE; i++) {
+            score += LINE_VALUES[(int) (board >>> (16 * i)) & 0xFFFF];
+            score += LINE_VALUES[(int) (columns >>> (16 * i)) & 0xFFFF];
+        }
+
+        return score;
+    }
+
+    /**
+     * A method to evaluate a single row or column of a board.
+     *
+     * @param board The board containing the line
+     * @param start The first cell of the line
+     * @param step The index offset between neighbouring cells of the line
+     * @param size The number of cells in the line
+     * @return the estimated value of the line
+     */
+    private static double evaluateLine(BoardState board, int start, int step, int size) {
+        int empty = 0, merges = 0, previous = 0, run = 0;
+        double sum = 0, increasing = 0, decreasing = 0;
+
+        for (int i = 0; i < size; i++) {
+            int exponent = board.getExponent(start + i * step);
+            sum += SUM_POWERS[exponent];
+
+            if (exponent == 0) {
+                empty++;
+                continue;
+            }
+
+            if (exponent == previous) {
+                run++;
+            } else {
+                if (run > 0) merges += 1 + run;
+                run = 0;
+                previous = exponent;
+            }
+        }
+
+        if (run > 0) merges += 1 + run;
+
+        for (int i = 1; i < size; i++) {
+            int a = board.getExponent(start + (i - 1) * step);
+            int b = board.getExponent(start + i * step);
+
+            if (a > b) decreasing += MONOTONICITY_POWERS[a] - MONOTONICITY_POWERS[b];
+            else increasing += MONOTONICITY_POWERS[b] - MONOTONICITY_POWERS[a];
+        }
+
+        return BASE_SCORE / size
+            + EMPTY_WEIGHT * empty
+            + MERGE_WEIGHT * merges
+            - MONOTONICITY_WEIGHT * Math.min(increasing, decreasing)
+            - SUM_WEIGHT * sum;
+    }
+}
@@ -0,0 +1,283 @@
+package core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reconstructs the boards of a game recorded by a {@link MoveJournal} by replaying its moves headlessly. <br>
+ * The journal's snapshots are indexed when it is read, so seeking to a position only replays the moves
+ * after the latest snapshot before it. A partly written record at the end of the journal is ignored.
+ *
+ * @author Evan Razzaque
+ */
+public class JournalReplay {
+    /**
+     * The journal being replayed
+     */
+    private final ByteBuffer journal;
+
+    /**
+     * The size of the journal's grid
+     */
+    private final int gridSize;
+
+    /**
+     * The seed the game's random number generator was created with
+     */
+    private final long seed;
+
+    /**
+     * The engine used to replay moves
+     */
+    private final GameEngine engine;
+
+    /**
+     * The offset of each snapshot's record type
+     */
+    private int[] snapshotOffsets = new int[16];
+
+    /**
+     * The number of moves made before each snapshot
+     */
+    private int[] snapshotMoves = new int[16];
+
+    /**
+     * The number of snapshots in the journal
+     */
+    private int snapshotCount;
+
+    /**
+     * The number of moves in the journal
+     */
+    private int moveCount;
+
+    /**
+     * The length of the journal up to the end of its last complete record
+     */
+    private int length;
+
+    /**
+     * A constructor for a replay of a journal.
+     *
+     * @param journal The journal, starting at the buffer's position
+     */
+    public JournalReplay(ByteBuffer journal) {
+        this.journal = journal.slice();
+
+        if (this.journal.remaining() < MoveJournal.HEADER_SIZE || this.journal.getInt(0) != MoveJournal.MAGIC)
+            throw new IllegalArgumentException("Not a journal file");
+
+        if (this.journal.get(Integer.BYTES) != MoveJournal.VERSION)
+            throw new IllegalArgumentException("Unsupported journal version: " + this.journal.get(Integer.BYTES));
+
+        gridSize = this.journal.getInt(Integer.BYTES + 1);
+        seed = this.journal.getLong(Integer.BYTES + 1 + Integer.BYTES);
+
+        if (gridSize < 2)
+            throw new IllegalArgumentException("Invalid journal grid size: " + gridSize);
+
+        engine = new GameEngine(gridSize);
+        index();
+
+        if (snapshotCount == 0)
+            throw new IllegalArgumentException("Journal has no starting board");
+    }
+
+    /**
+     * Gets the size of the journal's grid.
+     *
+     * @return the grid size
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Gets the seed the game's random number generator was created with.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of moves in the journal.
+     *
+     * @return the number of moves
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets the length of the journal up to the end of its last complete record.
+     *
+     * @return the number of valid bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * A method to reconstruct the board at the end of the journal.
+     *
+     * @param board The board to reconstruct into
+     */
+    public void replay(BoardState board) {
+        seek(moveCount, board);
+    }
+
+    /**
+     * A method to reconstruct the board after a number of moves, including everything recorded before the next move.
+     *
+     * @param moves The number of moves to replay
+     * @param board The board to reconstruct into
+     */
+    public void seek(int moves, BoardState board) {
+        if (moves < 0 || moves > moveCount)
+            throw new IllegalArgumentException("Move must be between 0 and " + moveCount);
+
+        // Finds the last snapshot taken before the move
+        int low = 0;
+        int high = snapshotCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (snapshotMoves[middle] <= moves) low = middle + 1;
+            else high = middle;
+        }
+
+        int snapshot = low - 1;
+
+        int offset = snapshotOffsets[snapshot];
+        SaveFormat.decode(journal.slice(offset + 1, SaveFormat.size(gridSize)), board);
+
+        replay(offset + 1 + SaveFormat.size(gridSize), snapshotMoves[snapshot], moves, board, false);
+    }
+
+    /**
+     * A method to replay the whole journal, checking that every periodic snapshot matches the replayed board.
+     *
+     * @return the number of moves before the first snapshot that does not match, or -1 if the journal is consistent
+     */
+    public int verify() {
+        BoardState board = new BoardState(gridSize);
+        int offset = snapshotOffsets[0];
+
+        SaveFormat.decode(journal.slice(offset + 1, SaveFormat.size(gridSize)), board);
+
+        return replay(offset + 1 + SaveFormat.size(gridSize), snapshotMoves[0], moveCount, board, true);
+    }
+
+    /**
+     * A method to apply the records from an offset until a number of moves has been made.
+     *
+     * @param offset The offset of the first record to apply
+     * @param moves The number of moves made before the first record
+     * @param target The number of moves to stop before
+     * @param board The board to apply the records to
+     * @param verify Whether periodic snapshots should be checked against the board
+     * @return the number of moves before the first snapshot that did not match, or -1
+     */
+    private int replay(int offset, int moves, int target, BoardState board, boolean verify) {
+        BoardState expected = verify ? new BoardState(gridSize) : null;
+
+        while (offset < length) {
+            byte type = journal.get(offset);
+
+            if (type < MoveJournal.SPAWN) {
+                if (moves == target) break;
+
+                engine.move(board, Direction.values()[type]);
+                moves++;
+                offset++;
+            } else if (type == MoveJournal.SPAWN) {
+                board.setExponent(journal.getInt(offset + 1), journal.get(offset + 1 + Integer.BYTES));
+                offset += 2 + Integer.BYTES;
+            } else {
+                ByteBuffer snapshot = journal.slice(offset + 1, SaveFormat.size(gridSize));
+
+                if (type == MoveJournal.RESTORE) {
+                    SaveFormat.decode(snapshot, board);
+                } else if (verify) {
+                    SaveFormat.decode(snapshot, expected);
+                    if (!matches(board, expected)) return moves;
+                }
+
+                offset += 1 + SaveFormat.size(gridSize);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Determines if two boards have the same numbers and score.
+     *
+     * @param board The first board
+     * @param other The second board
+     * @return whether the boards match
+     */
+    private boolean matches(BoardState board, BoardState other) {
+        // Most mismatched boards are caught by their hashes without comparing every cell
+        if (board.getScore() != other.getScore() || board.hash() != other.hash()) return false;
+
+        for (int cell = 0; cell < gridSize * gridSize; cell++) {
+            if (board.getExponent(cell) != other.getExponent(cell)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * A method to find every snapshot and the end of the last complete record.
+     */
+    private void index() {
+        int offset = MoveJournal.HEADER_SIZE;
+        int snapshotSize = 1 + SaveFormat.size(gridSize);
+        BoardState scratch = new BoardState(gridSize);
+
+        while (offset < journal.limit()) {
+            byte type = journal.get(offset);
+
+            // Every journal starts from a snapshot
+            if (snapshotCount == 0 && type != MoveJournal.RESTORE && type != MoveJournal.CHECKPOINT) break;
+
+            if (type >= 0 && type < MoveJournal.SPAWN) {
+                moveCount++;
+                offset++;
+            } else if (type == MoveJournal.SPAWN) {
+                if (offset + 2 + Integer.BYTES > journal.limit()) break;
+
+                int cell = journal.getInt(offset + 1);
+                int exponent = journal.get(offset + 1 + Integer.BYTES);
+                if (cell < 0 || cell >= gridSize * gridSize || exponent < 1) break;
+
+                offset += 2 + Integer.BYTES;
+            } else if (type == MoveJournal.CHECKPOINT || type == MoveJournal.RESTORE) {
+                if (offset + snapshotSize > journal.limit()) break;
+
+                // Stops at a snapshot that was only partly written
+                try {
+                    SaveFormat.decode(journal.slice(offset + 1, snapshotSize - 1), scratch);
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+
+                if (snapshotCount == snapshotOffsets.length) {
+                    snapshotOffsets = Arrays.copyOf(snapshotOffsets, 2 * snapshotCount);
+                    snapshotMoves = Arrays.copyOf(snapshotMoves, 2 * snapshotCount);
+                }
+
+                snapshotOffsets[snapshotCount] = offset;
+                snapshotMoves[snapshotCount++] = moveCount;
+                offset += snapshotSize;
+            } else {
+                break;
+            }
+        }
+
+        length = offset;
+    }
+}
@@ -0,0 +1,134 @@
+package core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations with a bounded relative error, in the style of an HDR histogram. <br>
+ * Values below {@code 2^SUB_BUCKET_BITS} get a bucket each. Every larger power of two is split into
+ * {@code 2^(SUB_BUCKET_BITS - 1)} equal buckets, so a recorded value is off by at most about 3%.
+ * Recording is a single atomic increment, so any thread can record while another reads percentiles.
+ *
+ * @author Evan Razzaque
+ */
+public class LatencyHistogram {
+    /**
+     * The base 2 logarithm of the number of buckets below the first split power of two
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /**
+     * The number of buckets each power of two is split into
+     */
+    private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+
+    /**
+     * The count of each bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(bucketIndex(Long.MAX_VALUE) + 1);
+
+    /**
+     * The number of recorded values
+     */
+    private final AtomicLong totalCount = new AtomicLong();
+
+    /**
+     * The largest recorded value
+     */
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * A method to record a value.
+     *
+     * @param value The value to record, where negative values are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        maxValue.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return the largest value, or 0 if nothing has been recorded
+     */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * Gets the value at a percentile, rounded up to the top of its bucket.
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return the value at the percentile, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+
+        long total = totalCount.get();
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(bucketTop(i), maxValue.get());
+        }
+
+        return maxValue.get();
+    }
+
+    /**
+     * A method to remove every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+
+        totalCount.set(0);
+        maxValue.set(0);
+    }
+
+    /**
+     * Gets the bucket a value is counted in.
+     *
+     * @param value The value, which cannot be negative
+     * @return the bucket's index
+     */
+    private static int bucketIndex(long value) {
+        if (value < 2 * HALF_SUB_BUCKETS) return (int) value;
+
+        // The bucket is chosen by the value's power of two and its next (SUB_BUCKET_BITS - 1) bits
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the largest value counted in a bucket.
+     *
+     * @param index The bucket's index
+     * @return the largest value of the bucket
+     */
+    private static long bucketTop(int index) {
+        if (index < 2 * HALF_SUB_BUCKETS) return index;
+
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long bottom = (long) (index - shift * HALF_SUB_BUCKETS) << shift;
+
+        return bottom + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,143 @@
+package core;
+
+/**
+ * A direct-mapped cache of moved lines for small grids. <br>
+ * A line is keyed by its exponents packed five bits per cell, and each entry stores the moved line,
+ * where each cell of the line ended up and which cells were combined.
+ *
+ * @author Evan Razzaque
+ */
+class LineCache {
+    /**
+     * The largest grid size whose lines can be cached
+     */
+    static final int MAX_SIZE = 12;
+
+    /**
+     * The largest exponent a cached line can contain, so that combined numbers still fit in five bits
+     */
+    static final int MAX_EXPONENT = 30;
+
+    /**
+     * Marks a key as being in use, since an empty line packs to 0
+     */
+    private static final long USED = 1L << 63;
+
+    /**
+     * The key of the line stored in each entry
+     */
+    private final long[] keys;
+
+    /**
+     * The moved line of each entry, with exponents packed five bits per cell
+     */
+    private final long[] lines;
+
+    /**
+     * Where each cell of the line ended up (four bits per cell, 0xF for an empty cell),
+     * followed by which cells of the moved line were combined (one bit per cell)
+     */
+    private final long[] tiles;
+
+    /**
+     * The mask used to turn a hash into an entry index
+     */
+    private final int mask;
+
+    /**
+     * A constructor for a line cache.
+     *
+     * @param capacityBits The base 2 logarithm of the number of entries
+     */
+    LineCache(int capacityBits) {
+        keys = new long[1 << capacityBits];
+        lines = new long[1 << capacityBits];
+        tiles = new long[1 << capacityBits];
+        mask = (1 << capacityBits) - 1;
+    }
+
+    /**
+     * A method to pack the exponents of a line into a key.
+     *
+     * @param board The board containing the line
+     * @param start The cell of the line next to the wall the numbers move towards
+     * @param step The index offset between neighbouring cells of the line
+     * @param size The number of cells in the line
+     * @return the key of the line, or -1 if the line contains an exponent that is too large to cache
+     */
+    static long key(BoardState board, int start, int step, int size) {
+        long key = 0;
+
+        for (int i = 0; i < size; i++) {
+            int exponent = board.getExponent(start + i * step);
+            if (exponent > MAX_EXPONENT) return -1;
+
+            key |= (long) exponent << (5 * i);
+        }
+
+        return key | USED;
+    }
+
+    /**
+     * A method to get the entry index of a key.
+     *
+     * @param key The key of the line
+     * @return the index of the entry the line is stored in
+     */
+    private int index(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key >>> 40) & mask;
+    }
+
+    /**
+     * A method to copy a cached line into the buffers of an engine.
+     *
+     * @param key The key of the line
+     * @param line The buffer to store the moved line in
+     * @param destinations The buffer to store where each cell ended up in (-1 for an empty cell)
+     * @param combined The buffer to store which cells of the moved line were combined in
+     * @return whether the line was cached or not
+     */
+    boolean load(long key, byte[] line, int[] destinations, boolean[] combined) {
+        int index = index(key);
+        if (keys[index] != key) return false;
+
+        int size = line.length;
+        long moved = lines[index];
+        long tile = tiles[index];
+
+        for (int i = 0; i < size; i++) {
+            line[i] = (byte) ((moved >>> (5 * i)) & 0x1F);
+
+            int destination = (int) (tile >>> (4 * i)) & 0xF;
+            destinations[i] = destination == 0xF ? -1 : destination;
+            combined[i] = (tile & 1L << (4 * size + i)) != 0;
+        }
+
+        return true;
+    }
+
+    /**
+     * A method to store a moved line in the cache, replacing any line stored in the same entry.
+     *
+     * @param key The key of the line
+     * @param line The moved line
+     * @param destinations Where each cell ended up (-1 for an empty cell)
+     * @param combined Which cells of the moved line were combined
+     */
+    void store(long key, byte[] line, int[] destinations, boolean[] combined) {
+        int index = index(key);
+        int size = line.length;
+        long moved = 0, tile = 0;
+
+        for (int i = 0; i < size; i++) {
+            moved |= (long) line[i] << (5 * i);
+            tile |= (long) (destinations[i] & 0xF) << (4 * i);
+            if (combined[i]) tile |= 1L << (4 * size + i);
+        }
+
+        keys[index] = key;
+        lines[index] = moved;
+        tiles[index] = tile;
+    }
+}
@@ -0,0 +1,22 @@
+package core;
+
+/**
+ * A kernel that slides and combines the numbers of a single line of a board towards a wall. <br>
+ * Every kernel must give exactly the same outcome as {@link GameEngine#slideLine}, and must be safe to use
+ * from several threads at once.
+ *
+ * @author Evan Razzaque
+ */
+interface LineSlider {
+    /**
+     * A method to slide and combine the numbers of a single line, storing the outcome in line buffers.
+     *
+     * @param board The board containing the line
+     * @param start The cell of the line next to the wall the numbers move towards
+     * @param step The index offset between neighbouring cells of the line, moving away from the wall
+     * @param line The buffer to store the moved line in, which is as long as the line
+     * @param destinations The buffer to store where each cell ended up in (-1 for an empty cell)
+     * @param combined The buffer to store which cells of the moved line were combined in
+     */
+    void slide(BoardState board, int start, int step, byte[] line, int[] destinations, boolean[] combined);
+}
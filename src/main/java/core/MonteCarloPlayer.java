@@ -0,0 +1,298 @@
+package core;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A strategy that picks the move with the best mean score over random games played to the end. <br>
+ * Playouts are split across a {@link ForkJoinPool}, where each thread plays with its own random number
+ * generator and reuses its own boards, so playing out a game does not allocate.
+ *
+ * @author Evan Razzaque
+ */
+public class MonteCarloPlayer implements Strategy {
+    /**
+     * The number of playouts a single fork-join task plays before it stops splitting
+     */
+    private static final int PLAYOUTS_PER_TASK = 4;
+
+    /**
+     * The number of playouts played for each move
+     */
+    private final int playouts;
+
+    /**
+     * The most moves a single playout can make, which keeps playouts on large grids bounded
+     */
+    private final int moveLimit;
+
+    /**
+     * The pool the playouts are played on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The generator each thread's random number generator is split from
+     */
+    private final SplittableRandom seedRandom;
+
+    /**
+     * The number of moves made during playouts
+     */
+    private final LongAdder nodes = new LongAdder();
+
+    /**
+     * The engine, boards and random number generator of each thread
+     */
+    private final ThreadLocal<Worker> workers = new ThreadLocal<>();
+
+    /**
+     * A constructor for a player that plays 100 playouts for each move on every processor.
+     */
+    public MonteCarloPlayer() {
+        this(100, Integer.MAX_VALUE, Runtime.getRuntime().availableProcessors(), System.nanoTime());
+    }
+
+    /**
+     * A constructor for a player.
+     *
+     * @param playouts The number of playouts played for each move
+     * @param moveLimit The most moves a single playout can make
+     * @param parallelism The number of threads to play with
+     * @param seed The seed the threads' random number generators are split from
+     */
+    public MonteCarloPlayer(int playouts, int moveLimit, int parallelism, long seed) {
+        if (playouts < 1)
+            throw new IllegalArgumentException("Playouts cannot be less than 1");
+
+        this.playouts = playouts;
+        this.moveLimit = moveLimit;
+        pool = new ForkJoinPool(parallelism);
+        seedRandom = new SplittableRandom(seed);
+    }
+
+    /**
+     * Gets the number of moves made during playouts.
+     *
+     * @return the number of moves made
+     */
+    @Override
+    public long getNodeCount() {
+        return nodes.sum();
+    }
+
+    /**
+     * A method to find the move with the best mean playout score.
+     *
+     * @param board The board to find a move for, which is not modified
+     * @return the best move, or null if no move can be made
+     */
+    @Override
+    public Direction suggestMove(BoardState board) {
+        LongAdder[] totals = new LongAdder[4];
+        boolean[] legal = new boolean[4];
+
+        for (Direction direction : Direction.values()) {
+            legal[direction.ordinal()] = board.canMove(direction);
+            totals[direction.ordinal()] = new LongAdder();
+        }
+
+        pool.invoke(new PlayoutTask(board, legal, totals, 0, 4 * playouts));
+
+        Direction best = null;
+        long bestTotal = Long.MIN_VALUE;
+
+        for (Direction direction : Direction.values()) {
+            long total = totals[direction.ordinal()].sum();
+
+            if (legal[direction.ordinal()] && total > bestTotal) {
+                bestTotal = total;
+                best = direction;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Gets the worker of the current thread for a grid size.
+     *
+     * @param gridSize The size of the grid being played
+     * @return the thread's worker
+     */
+    private Worker worker(int gridSize) {
+        Worker worker = workers.get();
+
+        if (worker == null) {
+            SplittableRandom random;
+            synchronized (seedRandom) {
+                random = seedRandom.split();
+            }
+
+            worker = new Worker(gridSize, random);
+            workers.set(worker);
+        } else if (worker.engine.getGridSize() != gridSize) {
+            worker = new Worker(gridSize, worker.random);
+            workers.set(worker);
+        }
+
+        return worker;
+    }
+
+    /**
+     * A method to stop the player's threads.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * A task that plays a range of playouts, where playout {@code i} starts with move {@code i / playouts}.
+     */
+    @SuppressWarnings("serial")
+    private class PlayoutTask extends RecursiveAction {
+        /**
+         * The board the playouts start from
+         */
+        private final BoardState root;
+
+        /**
+         * Whether each move can be made from the root board
+         */
+        private final boolean[] legal;
+
+        /**
+         * The total playout score of each move
+         */
+        private final LongAdder[] totals;
+
+        /**
+         * The first playout of the range
+         */
+        private final int from;
+
+        /**
+         * The playout after the last playout of the range
+         */
+        private final int to;
+
+        /**
+         * A constructor for a playout task.
+         *
+         * @param root The board the playouts start from
+         * @param legal Whether each move can be made from the root board
+         * @param totals The total playout score of each move
+         * @param from The first playout of the range
+         * @param to The playout after the last playout of the range
+         */
+        PlayoutTask(BoardState root, boolean[] legal, LongAdder[] totals, int from, int to) {
+            this.root = root;
+            this.legal = legal;
+            this.totals = totals;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * A method to play the range of playouts, splitting it while it is large.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > PLAYOUTS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PlayoutTask(root, legal, totals, from, middle), new PlayoutTask(root, legal, totals, middle, to));
+                return;
+            }
+
+            Worker worker = worker(root.getGridSize());
+
+            for (int i = from; i < to; i++) {
+                int move = i / playouts;
+                if (legal[move]) totals[move].add(worker.playout(root, Direction.values()[move]));
+            }
+        }
+    }
+
+    /**
+     * The engine, board and random number generator a single thread plays with.
+     */
+    private class Worker {
+        /**
+         * The engine used to perform moves
+         */
+        private final GameEngine engine;
+
+        /**
+         * The board the playout is played on
+         */
+        private final BoardState board;
+
+        /**
+         * The random number generator of the thread
+         */
+        private final SplittableRandom random;
+
+        /**
+         * The order moves are tried in during a playout
+         */
+        private final Direction[] directions = Direction.values();
+
+        /**
+         * A constructor for a worker.
+         *
+         * @param gridSize The size of the grid being played
+         * @param random The random number generator of the thread
+         */
+        Worker(int gridSize, SplittableRandom random) {
+            engine = new GameEngine(gridSize);
+            board = new BoardState(gridSize);
+            this.random = random;
+        }
+
+        /**
+         * A method to make a move and then play random moves until the game is over.
+         *
+         * @param root The board to start from
+         * @param first The first move to make
+         * @return the points gained during the playout
+         */
+        long playout(BoardState root, Direction first) {
+            board.copyFrom(root);
+            engine.move(board, first);
+
+            int moves = 1;
+            while (moves < moveLimit) {
+                engine.spawn(board, random);
+                if (!randomMove()) break;
+
+                moves++;
+            }
+
+            nodes.add(moves);
+
+            return board.getScore() - root.getScore();
+        }
+
+        /**
+         * A method to make a random move that changes the board.
+         *
+         * @return whether a move could be made
+         */
+        private boolean randomMove() {
+            // Shuffles the moves so each untried move is equally likely to be tried next
+            for (int i = directions.length - 1; i >= 0; i--) {
+                int j = random.nextInt(i + 1);
+                Direction direction = directions[j];
+                directions[j] = directions[i];
+                directions[i] = direction;
+
+                if (engine.move(board, direction).hasMoved()) return true;
+            }
+
+            return false;
+        }
+    }
+}
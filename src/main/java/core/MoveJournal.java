@@ -0,0 +1,379 @@
+package core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+
+/**
+ * An append-only journal of a single game, which {@link JournalReplay} can replay to any position. <br>
+ * A journal starts with a header (magic number, version, grid size and seed) and a snapshot of the board,
+ * followed by one record per move, added number and snapshot:
+ * <ul>
+ *   <li>a move is the direction's ordinal (1 byte)</li>
+ *   <li>an added number is {@link #SPAWN}, the cell and the exponent (6 bytes)</li>
+ *   <li>a snapshot is {@link #CHECKPOINT} or {@link #RESTORE} followed by the board in the {@link SaveFormat}</li>
+ * </ul>
+ * Records are buffered and handed to a writer thread in batches, which appends them and then forces them to disk.
+ * Once a save of the game is written, the journal is started again from the saved board with {@link #restartFromSave}.
+ *
+ * @author Evan Razzaque
+ */
+public class MoveJournal implements AutoCloseable {
+    /**
+     * The number every journal starts with ("2JNL" in ASCII)
+     */
+    public static final int MAGIC = 0x324A4E4C;
+
+    /**
+     * The version of the journal format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The number of bytes in the header: magic, version, grid size and seed
+     */
+    static final int HEADER_SIZE = Integer.BYTES + 1 + Integer.BYTES + Long.BYTES;
+
+    /**
+     * The record type of an added number
+     */
+    static final byte SPAWN = 4;
+
+    /**
+     * The record type of a periodic snapshot, which must match the board replayed up to it
+     */
+    static final byte CHECKPOINT = 5;
+
+    /**
+     * The record type of a snapshot that replaces the board, such as after an undo
+     */
+    static final byte RESTORE = 6;
+
+    /**
+     * The number of moves between periodic snapshots, which bounds how many moves a seek replays
+     */
+    public static final int CHECKPOINT_INTERVAL = 256;
+
+    /**
+     * The number of records written before they are forced to disk
+     */
+    private static final int SYNC_INTERVAL = 32;
+
+    /**
+     * The journal file
+     */
+    private final Path path;
+
+    /**
+     * The channel of the journal file, only used by the writer thread once the journal is open
+     */
+    private FileChannel channel;
+
+    /**
+     * The thread the records are written on
+     */
+    private final Executor writer;
+
+    /**
+     * The size of the journal's grid
+     */
+    private final int gridSize;
+
+    /**
+     * The seed the game's random number generator was created with
+     */
+    private final long seed;
+
+    /**
+     * The records that have not been handed to the writer thread yet
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The number of moves recorded
+     */
+    private int moveCount;
+
+    /**
+     * The number of moves recorded since the latest snapshot
+     */
+    private int movesSinceCheckpoint;
+
+    /**
+     * The number of records in the buffer
+     */
+    private int bufferedRecords;
+
+    /**
+     * The latest save marked with {@link #markSave}, only used by the writer thread
+     */
+    private ByteBuffer markedSave;
+
+    /**
+     * The length of the journal file when {@link #markedSave} was made, only used by the writer thread
+     */
+    private long markedLength;
+
+    /**
+     * A constructor for a journal.
+     *
+     * @param path The journal file
+     * @param channel The channel of the journal file, positioned at its end
+     * @param writer The thread the records are written on
+     * @param gridSize The size of the journal's grid
+     * @param seed The seed the game's random number generator was created with
+     * @param moveCount The number of moves already in the journal
+     */
+    private MoveJournal(Path path, FileChannel channel, Executor writer, int gridSize, long seed, int moveCount) {
+        this.path = path;
+        this.channel = channel;
+        this.writer = writer;
+        this.gridSize = gridSize;
+        this.seed = seed;
+        this.moveCount = moveCount;
+        buffer = ByteBuffer.allocate(Math.max(4096, 2 * (SaveFormat.size(gridSize) + 1) + HEADER_SIZE));
+    }
+
+    /**
+     * A method to start a new journal, replacing any journal at the path.
+     *
+     * @param path The journal file
+     * @param board The board the game starts from
+     * @param seed The seed the game's random number generator was created with
+     * @param writer The thread the records are written on
+     * @return the journal
+     */
+    public static MoveJournal create(Path path, BoardState board, long seed, Executor writer) {
+        FileChannel channel;
+
+        try {
+            channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        MoveJournal journal = new MoveJournal(path, channel, writer, board.getGridSize(), seed, 0);
+        journal.putHeader(journal.buffer);
+        journal.snapshot(RESTORE, board);
+
+        return journal;
+    }
+
+    /**
+     * A method to continue an existing journal, discarding any partly written record at its end.
+     *
+     * @param path The journal file
+     * @param writer The thread the records are written on
+     * @return the journal
+     */
+    public static MoveJournal open(Path path, Executor writer) {
+        try {
+            JournalReplay replay = new JournalReplay(ByteBuffer.wrap(Files.readAllBytes(path)));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+
+            channel.truncate(replay.getLength());
+            channel.position(replay.getLength());
+
+            return new MoveJournal(path, channel, writer, replay.getGridSize(), replay.getSeed(), replay.getMoveCount());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Gets the seed the game's random number generator was created with.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of moves recorded.
+     *
+     * @return the number of moves
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * A method to record a move.
+     *
+     * @param direction The direction the numbers were moved in
+     */
+    public void recordMove(Direction direction) {
+        buffer.put((byte) direction.ordinal());
+        moveCount++;
+        movesSinceCheckpoint++;
+        recorded();
+    }
+
+    /**
+     * A method to record a number added to a board, taking a snapshot if one is due.
+     *
+     * @param board The board the number was added to
+     * @param cell The cell the number was added to
+     */
+    public void recordSpawn(BoardState board, int cell) {
+        buffer.put(SPAWN).putInt(cell).put((byte) board.getExponent(cell));
+        recorded();
+
+        if (movesSinceCheckpoint >= CHECKPOINT_INTERVAL) snapshot(CHECKPOINT, board);
+    }
+
+    /**
+     * A method to record a board that replaced the previous board, such as after an undo.
+     *
+     * @param board The new board
+     */
+    public void recordRestore(BoardState board) {
+        snapshot(RESTORE, board);
+    }
+
+    /**
+     * A method to hand the buffered records to the writer thread, which appends them and forces them to disk.
+     */
+    public void sync() {
+        if (buffer.position() == 0) return;
+
+        ByteBuffer records = ByteBuffer.allocate(buffer.position());
+        records.put(buffer.flip()).flip();
+        buffer.clear();
+        bufferedRecords = 0;
+
+        writer.execute(() -> {
+            try {
+                while (records.hasRemaining()) channel.write(records);
+                channel.force(false);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * A method to mark the end of the records made before a save, so that once the save has been written,
+     * the journal can be started again from it with {@link #restartFromSave}.
+     *
+     * @param saveData The save in the {@link SaveFormat}, which must not be changed afterwards
+     */
+    public void markSave(ByteBuffer saveData) {
+        if (SaveFormat.readGridSize(saveData.duplicate()) != gridSize)
+            throw new IllegalArgumentException("Grid sizes do not match");
+
+        sync();
+
+        writer.execute(() -> {
+            try {
+                markedLength = channel.size();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            markedSave = saveData;
+        });
+    }
+
+    /**
+     * A method to start the journal again from a save that has been written, keeping only the records made after it. <br>
+     * Nothing changes unless the save is the latest one marked with {@link #markSave} and the journal is still open.
+     * The new journal is written to a temporary file that replaces the journal file, so a complete journal is always on disk.
+     *
+     * @param saveData The save that was written
+     */
+    public void restartFromSave(ByteBuffer saveData) {
+        writer.execute(() -> {
+            if (saveData != markedSave || !channel.isOpen()) return;
+
+            markedSave = null;
+            Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+            ByteBuffer start = ByteBuffer.allocate(HEADER_SIZE + 1 + saveData.remaining());
+            putHeader(start);
+            start.put(RESTORE).put(saveData.duplicate()).flip();
+
+            try {
+                try (FileChannel temp = FileChannel.open(tempPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                     FileChannel previous = FileChannel.open(path, StandardOpenOption.READ)) {
+                    while (start.hasRemaining()) temp.write(start);
+
+                    // Copies the records that were written after the save was made
+                    long position = markedLength, end = channel.size();
+                    while (position < end) position += previous.transferTo(position, end - position, temp);
+
+                    temp.force(false);
+                }
+
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                channel.close();
+                channel = FileChannel.open(path, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * A method to write the buffered records and close the journal file.
+     */
+    @Override
+    public void close() {
+        sync();
+
+        writer.execute(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * A method to add the journal's header to a buffer.
+     *
+     * @param target The buffer to add the header to
+     */
+    private void putHeader(ByteBuffer target) {
+        target.putInt(MAGIC)
+            .put((byte) VERSION)
+            .putInt(gridSize)
+            .putLong(seed);
+    }
+
+    /**
+     * A method to record a snapshot of a board and write it straight away.
+     *
+     * @param type The record type of the snapshot
+     * @param board The board to record
+     */
+    private void snapshot(byte type, BoardState board) {
+        if (board.getGridSize() != gridSize)
+            throw new IllegalArgumentException("Grid sizes do not match");
+
+        if (buffer.remaining() < SaveFormat.size(gridSize) + 1) sync();
+
+        buffer.put(type);
+        SaveFormat.encode(board, buffer);
+        movesSinceCheckpoint = 0;
+        sync();
+    }
+
+    /**
+     * A method to count a buffered record, writing the buffer once a batch is complete or it is nearly full.
+     */
+    private void recorded() {
+        if (++bufferedRecords >= SYNC_INTERVAL || buffer.remaining() < SaveFormat.size(gridSize) + 1) sync();
+    }
+}
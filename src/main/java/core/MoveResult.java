@@ -0,0 +1,201 @@
+package core;
+
+/**
+ * The outcome of a move performed by a {@link GameEngine}. <br>
+ * An instance is reused for every move so that moving does not allocate.
+ *
+ * @author Evan Razzaque
+ */
+public class MoveResult {
+    /**
+     * The cell each tile started in
+     */
+    private final int[] fromCells;
+
+    /**
+     * The cell each tile ended up in
+     */
+    private final int[] toCells;
+
+    /**
+     * The exponent each tile had before the move
+     */
+    private final byte[] exponents;
+
+    /**
+     * The number of tiles recorded for the move
+     */
+    private int tileCount;
+
+    /**
+     * The points gained from the move
+     */
+    private long scoreDelta;
+
+    /**
+     * The number of combinations that occurred during the move
+     */
+    private int mergeCount;
+
+    /**
+     * Whether any number changed position or value
+     */
+    private boolean moved;
+
+    /**
+     * A constructor for a move result.
+     *
+     * @param gridSize The size of the grid the moves are performed on
+     */
+    public MoveResult(int gridSize) {
+        fromCells = new int[gridSize * gridSize];
+        toCells = new int[gridSize * gridSize];
+        exponents = new byte[gridSize * gridSize];
+    }
+
+    /**
+     * A method to clear the result before performing a move.
+     */
+    void reset() {
+        tileCount = 0;
+        scoreDelta = 0;
+        mergeCount = 0;
+        moved = false;
+    }
+
+    /**
+     * A method to record where a tile moved to.
+     *
+     * @param from The cell the tile started in
+     * @param to The cell the tile ended up in
+     * @param exponent The exponent of the tile before the move
+     */
+    void addTile(int from, int to, int exponent) {
+        fromCells[tileCount] = from;
+        toCells[tileCount] = to;
+        exponents[tileCount] = (byte) exponent;
+        tileCount++;
+    }
+
+    /**
+     * A method to copy the tiles recorded for part of a move into the result. <br>
+     * Different threads can copy into different positions at the same time.
+     *
+     * @param position The index of the result's first tile to copy into
+     * @param from The cell each tile started in
+     * @param to The cell each tile ended up in
+     * @param tileExponents The exponent each tile had before the move
+     * @param offset The index of the first tile to copy
+     * @param count The number of tiles to copy
+     */
+    void copyTiles(int position, int[] from, int[] to, byte[] tileExponents, int offset, int count) {
+        System.arraycopy(from, offset, fromCells, position, count);
+        System.arraycopy(to, offset, toCells, position, count);
+        System.arraycopy(tileExponents, offset, exponents, position, count);
+    }
+
+    /**
+     * Sets the number of tiles recorded for the move, after they were copied with {@link #copyTiles}.
+     *
+     * @param tileCount The number of tiles
+     */
+    void setTileCount(int tileCount) {
+        this.tileCount = tileCount;
+    }
+
+    /**
+     * A method to record several combinations at once.
+     *
+     * @param points The points gained from the combinations
+     * @param count The number of combinations
+     */
+    void addMerges(long points, int count) {
+        scoreDelta = BoardState.addPoints(scoreDelta, points);
+        mergeCount += count;
+    }
+
+    /**
+     * A method to record a combination of two tiles.
+     *
+     * @param exponent The exponent of the combined tile, whose number is the points gained
+     */
+    void addMerge(int exponent) {
+        scoreDelta = BoardState.addPoints(scoreDelta, BoardState.getValue(exponent));
+        mergeCount++;
+    }
+
+    /**
+     * Sets whether the move changed the board.
+     *
+     * @param moved Whether any number changed position or value
+     */
+    void setMoved(boolean moved) {
+        this.moved = moved;
+    }
+
+    /**
+     * Gets the number of tiles recorded for the move, including tiles that did not move.
+     *
+     * @return the number of tiles, or 0 if the move did not change the board
+     */
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Gets the cell a tile started in.
+     *
+     * @param tile The index of the tile in the result
+     * @return the cell index (row * gridSize + col)
+     */
+    public int getFrom(int tile) {
+        return fromCells[tile];
+    }
+
+    /**
+     * Gets the cell a tile ended up in.
+     *
+     * @param tile The index of the tile in the result
+     * @return the cell index (row * gridSize + col)
+     */
+    public int getTo(int tile) {
+        return toCells[tile];
+    }
+
+    /**
+     * Gets the exponent a tile had before the move.
+     *
+     * @param tile The index of the tile in the result
+     * @return the tile's previous exponent
+     */
+    public int getExponent(int tile) {
+        return exponents[tile];
+    }
+
+    /**
+     * Gets the points gained from the move.
+     *
+     * @return the score delta
+     */
+    public long getScoreDelta() {
+        return scoreDelta;
+    }
+
+    /**
+     * Gets the number of combinations that occurred during the move.
+     *
+     * @return the number of combinations
+     */
+    public int getMergeCount() {
+        return mergeCount;
+    }
+
+    /**
+     * Determines if the move changed the board.
+     *
+     * @return whether any number changed position or value
+     */
+    public boolean hasMoved() {
+        return moved;
+    }
+}
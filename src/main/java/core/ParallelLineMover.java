@@ -0,0 +1,403 @@
+package core;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Moves the lines of a large board on the threads of a {@link ForkJoinPool}. <br>
+ * Every line of a move only reads and writes its own cells, so the lines are split into chunks that are slid
+ * and written to the board at the same time. What the lines share (the points and combinations, the tiles of the
+ * {@link MoveResult}, the board's empty cells, pair counts and hash) is gathered per line or per chunk
+ * and combined once every chunk has finished, in line order, so a move gives exactly the same board and result
+ * as moving the lines one after another. <br>
+ * An instance reuses its buffers between moves, so each thread should use its own instance.
+ *
+ * @author Evan Razzaque
+ */
+class ParallelLineMover {
+    /**
+     * The number of chunks the lines are split into for each thread of the pool, so that busy threads can be caught up on
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The lines moved by one task, along with the buffers and totals of those lines.
+     */
+    private static class Chunk {
+        /**
+         * The first line of the chunk
+         */
+        private final int firstLine;
+
+        /**
+         * The line after the last line of the chunk
+         */
+        private final int endLine;
+
+        /**
+         * Stores the exponents of a single line after it has been moved
+         */
+        private final byte[] line;
+
+        /**
+         * Stores where each cell of a line ended up, or -1 for an empty cell
+         */
+        private final int[] destinations;
+
+        /**
+         * Stores which cells of a moved line were combined
+         */
+        private final boolean[] combined;
+
+        /**
+         * The neighbouring cell pair counts of the chunk's rows, in the order of {@link BoardState#countPairs(int, int, int[])}
+         */
+        private final int[] pairCounts = new int[5];
+
+        /**
+         * The XOR of the old and new Zobrist keys of every changed cell
+         */
+        private long hashDelta;
+
+        /**
+         * The points gained from the chunk's combinations
+         */
+        private long points;
+
+        /**
+         * The number of combinations in the chunk
+         */
+        private int merges;
+
+        /**
+         * Whether a combination in the chunk reached the winning tile
+         */
+        private boolean won;
+
+        /**
+         * Whether any number in the chunk changed
+         */
+        private boolean changed;
+
+        /**
+         * A constructor for a chunk of lines.
+         *
+         * @param firstLine The first line of the chunk
+         * @param endLine The line after the last line of the chunk
+         * @param gridSize The size of the grid
+         */
+        private Chunk(int firstLine, int endLine, int gridSize) {
+            this.firstLine = firstLine;
+            this.endLine = endLine;
+            line = new byte[gridSize];
+            destinations = new int[gridSize];
+            combined = new boolean[gridSize];
+        }
+    }
+
+    /**
+     * A task that runs a phase of a move on a range of chunks, splitting the range in half until it holds one chunk.
+     */
+    @SuppressWarnings("serial")
+    private static class ChunkTask extends RecursiveAction {
+        /**
+         * The phase to run on each chunk
+         */
+        private final IntConsumer phase;
+
+        /**
+         * The first chunk of the range
+         */
+        private final int from;
+
+        /**
+         * The chunk after the last chunk of the range
+         */
+        private final int to;
+
+        /**
+         * A constructor for a chunk task.
+         *
+         * @param phase The phase to run on each chunk, given the chunk's index
+         * @param from The first chunk of the range
+         * @param to The chunk after the last chunk of the range
+         */
+        private ChunkTask(IntConsumer phase, int from, int to) {
+            this.phase = phase;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * A method to run the phase on every chunk of the range.
+         */
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                phase.accept(from);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(phase, from, middle), new ChunkTask(phase, middle, to));
+        }
+    }
+
+    /**
+     * The size of the grid
+     */
+    private final int gridSize;
+
+    /**
+     * The pool the chunks are moved on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The chunks the lines are split into
+     */
+    private final Chunk[] chunks;
+
+    /**
+     * The phase that slides each line of a chunk and writes it to the board
+     */
+    private final IntConsumer slidePhase = this::slideChunk;
+
+    /**
+     * The phase that copies the tiles of a chunk into the result and counts the pairs of its rows
+     */
+    private final IntConsumer finishPhase = this::finishChunk;
+
+    /**
+     * The cell each tile started in, where the tiles of each line start at the line's index * gridSize
+     */
+    private final int[] tileFrom;
+
+    /**
+     * The cell each tile ended up in, stored like {@link #tileFrom}
+     */
+    private final int[] tileTo;
+
+    /**
+     * The exponent each tile had before the move, stored like {@link #tileFrom}
+     */
+    private final byte[] tileExponents;
+
+    /**
+     * The number of tiles of each line
+     */
+    private final int[] tileCounts;
+
+    /**
+     * The index in the result of the first tile of each line
+     */
+    private final int[] tileStarts;
+
+    /**
+     * The cells of each line that were filled, or emptied as their complement ({@code ~index}), in line order,
+     * stored like {@link #tileFrom}
+     */
+    private final int[] flips;
+
+    /**
+     * The number of cells of each line that were filled or emptied
+     */
+    private final int[] flipCounts;
+
+    /**
+     * The board of the move in progress
+     */
+    private BoardState board;
+
+    /**
+     * The kernel that slides the lines of the move in progress
+     */
+    private LineSlider slider;
+
+    /**
+     * The result of the move in progress
+     */
+    private MoveResult result;
+
+    /**
+     * The cell of the first line that is next to the wall the numbers move towards
+     */
+    private int first;
+
+    /**
+     * The index offset between the starts of neighbouring lines
+     */
+    private int lineStep;
+
+    /**
+     * The index offset between neighbouring cells of a line, moving away from the wall
+     */
+    private int cellStep;
+
+    /**
+     * A constructor for a parallel line mover.
+     *
+     * @param gridSize The size of the grid the lines are moved on
+     * @param pool The pool to move the lines on
+     */
+    ParallelLineMover(int gridSize, ForkJoinPool pool) {
+        this.gridSize = gridSize;
+        this.pool = pool;
+
+        int chunkCount = Math.min(gridSize, pool.getParallelism() * CHUNKS_PER_THREAD);
+        chunks = new Chunk[chunkCount];
+        for (int i = 0; i < chunkCount; i++)
+            chunks[i] = new Chunk(i * gridSize / chunkCount, (i + 1) * gridSize / chunkCount, gridSize);
+
+        tileFrom = new int[gridSize * gridSize];
+        tileTo = new int[gridSize * gridSize];
+        tileExponents = new byte[gridSize * gridSize];
+        tileCounts = new int[gridSize];
+        tileStarts = new int[gridSize];
+        flips = new int[gridSize * gridSize];
+        flipCounts = new int[gridSize];
+    }
+
+    /**
+     * A method to move every line of a board, recording the tiles and combinations in a result.
+     *
+     * @param board The board to move the numbers on
+     * @param first The cell of the first line that is next to the wall the numbers move towards
+     * @param lineStep The index offset between the starts of neighbouring lines
+     * @param cellStep The index offset between neighbouring cells of a line, moving away from the wall
+     * @param slider The kernel that slides each line, which is shared by every chunk
+     * @param result The result to record the move in, which has been reset
+     * @return whether any number changed
+     */
+    boolean move(BoardState board, int first, int lineStep, int cellStep, LineSlider slider, MoveResult result) {
+        this.board = board;
+        this.slider = slider;
+        this.result = result;
+        this.first = first;
+        this.lineStep = lineStep;
+        this.cellStep = cellStep;
+
+        try {
+            pool.invoke(new ChunkTask(slidePhase, 0, chunks.length));
+
+            long hashDelta = 0, points = 0;
+            int merges = 0;
+            boolean won = false, changed = false;
+
+            for (Chunk chunk : chunks) {
+                hashDelta ^= chunk.hashDelta;
+                points = BoardState.addPoints(points, chunk.points);
+                merges += chunk.merges;
+                won |= chunk.won;
+                changed |= chunk.changed;
+            }
+
+            // The empty cells are updated in the order the lines would have been moved in one after another,
+            // so that the same cells are picked for the added numbers
+            int tileCount = 0;
+            for (int i = 0; i < gridSize; i++) {
+                tileStarts[i] = tileCount;
+                tileCount += tileCounts[i];
+
+                for (int j = i * gridSize; j < i * gridSize + flipCounts[i]; j++) {
+                    if (flips[j] >= 0) {
+                        board.removeFreeCell(flips[j]);
+                    } else {
+                        board.addFreeCell(~flips[j]);
+                    }
+                }
+            }
+
+            board.updateHash(hashDelta);
+            pool.invoke(new ChunkTask(finishPhase, 0, chunks.length));
+
+            int[] pairCounts = new int[5];
+            for (Chunk chunk : chunks) {
+                for (int i = 0; i < pairCounts.length; i++) pairCounts[i] += chunk.pairCounts[i];
+            }
+
+            board.setPairCounts(pairCounts);
+            result.setTileCount(tileCount);
+            result.addMerges(points, merges);
+            if (won && !board.getHasWon()) board.setHasWon(true);
+
+            return changed;
+        } finally {
+            this.board = null;
+            this.slider = null;
+            this.result = null;
+        }
+    }
+
+    /**
+     * A method to slide the lines of a chunk and write the cells that changed to the board.
+     *
+     * @param index The index of the chunk
+     */
+    private void slideChunk(int index) {
+        Chunk chunk = chunks[index];
+        chunk.hashDelta = 0;
+        chunk.points = 0;
+        chunk.merges = 0;
+        chunk.won = false;
+        chunk.changed = false;
+
+        for (int lineIndex = chunk.firstLine; lineIndex < chunk.endLine; lineIndex++) {
+            int start = first + lineIndex * lineStep;
+            int base = lineIndex * gridSize;
+            int tiles = 0, flipped = 0;
+
+            slider.slide(board, start, cellStep, chunk.line, chunk.destinations, chunk.combined);
+
+            for (int i = 0; i < gridSize; i++) {
+                int cell = start + i * cellStep;
+                int oldExponent = board.getExponent(cell);
+                int exponent = chunk.line[i];
+
+                if (chunk.destinations[i] >= 0) {
+                    tileFrom[base + tiles] = cell;
+                    tileTo[base + tiles] = start + chunk.destinations[i] * cellStep;
+                    tileExponents[base + tiles++] = (byte) oldExponent;
+                }
+
+                if (chunk.combined[i]) {
+                    chunk.points = BoardState.addPoints(chunk.points, BoardState.getValue(exponent));
+                    chunk.merges++;
+                    if (exponent == GameEngine.WINNING_EXPONENT) chunk.won = true;
+                }
+
+                if (oldExponent == exponent) continue;
+
+                board.writeExponent(cell, exponent);
+                chunk.hashDelta ^= BoardState.zobristKey(cell, oldExponent) ^ BoardState.zobristKey(cell, exponent);
+                chunk.changed = true;
+
+                if (oldExponent == 0) {
+                    flips[base + flipped++] = cell;
+                } else if (exponent == 0) {
+                    flips[base + flipped++] = ~cell;
+                }
+            }
+
+            tileCounts[lineIndex] = tiles;
+            flipCounts[lineIndex] = flipped;
+        }
+    }
+
+    /**
+     * A method to copy the tiles of a chunk's lines into the result and count the pairs of the chunk's rows.
+     *
+     * @param index The index of the chunk
+     */
+    private void finishChunk(int index) {
+        Chunk chunk = chunks[index];
+
+        for (int lineIndex = chunk.firstLine; lineIndex < chunk.endLine; lineIndex++)
+            result.copyTiles(tileStarts[lineIndex], tileFrom, tileTo, tileExponents, lineIndex * gridSize, tileCounts[lineIndex]);
+
+        Arrays.fill(chunk.pairCounts, 0);
+        board.countPairs(chunk.firstLine, chunk.endLine, chunk.pairCounts);
+    }
+}
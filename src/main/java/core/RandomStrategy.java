@@ -0,0 +1,90 @@
+package core;
+
+import java.util.SplittableRandom;
+
+/**
+ * A strategy that makes a random move out of the moves that change the board. <br>
+ * An instance should only be used by one thread at a time.
+ *
+ * @author Evan Razzaque
+ */
+public class RandomStrategy implements Strategy {
+    /**
+     * The random number generator used to choose moves
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The number of moves chosen
+     */
+    private long nodes;
+
+    /**
+     * A constructor for a random strategy.
+     *
+     * @param seed The seed of the random number generator used to choose moves
+     */
+    public RandomStrategy(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * A method to choose a random move that changes the board.
+     *
+     * @param board The board to choose a move for, which is not modified
+     * @return the chosen move, or null if no move can be made
+     */
+    @Override
+    public Direction suggestMove(BoardState board) {
+        int legalMoves = 0;
+        for (Direction direction : Direction.values()) {
+            if (board.canMove(direction)) legalMoves++;
+        }
+
+        if (legalMoves == 0) return null;
+
+        int choice = random.nextInt(legalMoves);
+        nodes++;
+
+        for (Direction direction : Direction.values()) {
+            if (board.canMove(direction) && choice-- == 0) return direction;
+        }
+
+        return null;
+    }
+
+    /**
+     * A method to choose a random move that changes a board packed into a {@link Bitboard}.
+     *
+     * @param board The board to choose a move for, on which no move can overflow a cell ({@link Bitboard#canOverflow})
+     * @return the chosen move, or null if no move can be made
+     */
+    @Override
+    public Direction suggestMove(long board) {
+        int legalMoves = 0;
+        for (Direction direction : Direction.values()) {
+            if (Bitboard.canMove(board, direction)) legalMoves++;
+        }
+
+        if (legalMoves == 0) return null;
+
+        int choice = random.nextInt(legalMoves);
+        nodes++;
+
+        for (Direction direction : Direction.values()) {
+            if (Bitboard.canMove(board, direction) && choice-- == 0) return direction;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the number of moves chosen.
+     *
+     * @return the number of moves chosen
+     */
+    @Override
+    public long getNodeCount() {
+        return nodes;
+    }
+}
@@ -0,0 +1,165 @@
+package core;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * The versioned binary format boards are saved in. <br>
+ * A save is a header (magic number, version, grid size, score, high score and flags),
+ * one byte per cell holding its exponent, and a CRC32 checksum of everything before it.
+ * Numbers are stored big-endian.
+ *
+ * @author Evan Razzaque
+ */
+public final class SaveFormat {
+    /**
+     * The number every save starts with ("2048" in ASCII)
+     */
+    public static final int MAGIC = 0x32303438;
+
+    /**
+     * The version of the format written by {@link #encode(BoardState)}
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The number of bytes before the cells: magic, version, grid size, score, high score and flags
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + 1 + Integer.BYTES + 2 * Long.BYTES + 1;
+
+    /**
+     * The flag set when the game has been won
+     */
+    private static final int HAS_WON_FLAG = 1;
+
+    /**
+     * The flag set when the game has been continued after winning
+     */
+    private static final int GAME_CONTINUED_FLAG = 2;
+
+    /**
+     * A private constructor, since the class only has static methods.
+     */
+    private SaveFormat() {}
+
+    /**
+     * Gets the size of a save.
+     *
+     * @param gridSize The size of the saved grid
+     * @return the number of bytes in the save
+     */
+    public static int size(int gridSize) {
+        return HEADER_SIZE + gridSize * gridSize + Integer.BYTES;
+    }
+
+    /**
+     * A method to encode a board into a new buffer.
+     *
+     * @param board The board to encode
+     * @return the encoded board, ready to be read
+     */
+    public static ByteBuffer encode(BoardState board) {
+        ByteBuffer buffer = ByteBuffer.allocate(size(board.getGridSize()));
+        encode(board, buffer);
+
+        return buffer.flip();
+    }
+
+    /**
+     * A method to encode a board into a buffer at its current position.
+     *
+     * @param board The board to encode
+     * @param buffer The buffer to write to
+     */
+    public static void encode(BoardState board, ByteBuffer buffer) {
+        int start = buffer.position();
+        int cells = board.getGridSize() * board.getGridSize();
+        int flags = (board.getHasWon() ? HAS_WON_FLAG : 0) | (board.isGameContinued() ? GAME_CONTINUED_FLAG : 0);
+
+        buffer.putInt(MAGIC)
+            .put((byte) VERSION)
+            .putInt(board.getGridSize())
+            .putLong(board.getScore())
+            .putLong(board.getHighScore())
+            .put((byte) flags);
+
+        for (int cell = 0; cell < cells; cell++) buffer.put((byte) board.getExponent(cell));
+
+        buffer.putInt(checksum(buffer, start, buffer.position()));
+    }
+
+    /**
+     * Gets the grid size of a save without decoding it.
+     *
+     * @param buffer The save, starting at the buffer's position
+     * @return the size of the saved grid
+     */
+    public static int readGridSize(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(buffer.position()) != MAGIC)
+            throw new IllegalArgumentException("Not a save file");
+
+        return buffer.getInt(buffer.position() + Integer.BYTES + 1);
+    }
+
+    /**
+     * A method to decode a save into a board with the same grid size.
+     *
+     * @param buffer The save, starting at the buffer's position
+     * @param board The board to decode into
+     */
+    public static void decode(ByteBuffer buffer, BoardState board) {
+        int start = buffer.position();
+        int gridSize = readGridSize(buffer);
+
+        if (gridSize != board.getGridSize())
+            throw new IllegalArgumentException("Saved grid does not match the grid size");
+
+        if (buffer.remaining() < size(gridSize))
+            throw new IllegalArgumentException("Save file is truncated");
+
+        int end = start + size(gridSize) - Integer.BYTES;
+        if (buffer.getInt(end) != checksum(buffer, start, end))
+            throw new IllegalArgumentException("Save file is corrupted");
+
+        buffer.getInt();
+        int version = buffer.get();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported save version: " + version);
+
+        buffer.getInt();
+        long score = buffer.getLong();
+        long highScore = buffer.getLong();
+        int flags = buffer.get();
+
+        for (int cell = 0; cell < gridSize * gridSize; cell++) {
+            int exponent = buffer.get();
+
+            if (exponent < 0 || exponent > BoardState.MAX_EXPONENT)
+                throw new IllegalArgumentException("Invalid saved exponent: " + exponent);
+
+            board.setExponent(cell, exponent);
+        }
+
+        buffer.getInt();
+
+        board.setScore(score);
+        board.setHighScore(highScore);
+        board.setHasWon((flags & HAS_WON_FLAG) != 0);
+        board.setGameContinued((flags & GAME_CONTINUED_FLAG) != 0);
+    }
+
+    /**
+     * Gets the CRC32 checksum of part of a buffer, without moving its position.
+     *
+     * @param buffer The buffer to check
+     * @param from The index of the first byte
+     * @param to The index after the last byte
+     * @return the checksum
+     */
+    private static int checksum(ByteBuffer buffer, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(from, to - from));
+
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,46 @@
+package core;
+
+/**
+ * A way of choosing moves for a game of 2048.
+ *
+ * @author Evan Razzaque
+ */
+public interface Strategy extends AutoCloseable {
+    /**
+     * A method to choose a move for a board.
+     *
+     * @param board The board to choose a move for, which is not modified
+     * @return the chosen move, or null if no move can be made
+     */
+    Direction suggestMove(BoardState board);
+
+    /**
+     * A method to choose a move for a 4x4 board packed into a {@link Bitboard}. <br>
+     * By default the board is unpacked and passed to {@link #suggestMove(BoardState)}.
+     *
+     * @param board The board to choose a move for, on which no move can overflow a cell ({@link Bitboard#canOverflow})
+     * @return the chosen move, or null if no move can be made
+     */
+    default Direction suggestMove(long board) {
+        BoardState state = new BoardState(Bitboard.SIZE);
+        Bitboard.unpack(board, state);
+
+        return suggestMove(state);
+    }
+
+    /**
+     * Gets the number of boards the strategy has visited while choosing moves.
+     *
+     * @return the number of boards visited
+     */
+    default long getNodeCount() {
+        return 0;
+    }
+
+    /**
+     * A method to release any threads used by the strategy.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,89 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * A bounded table of evaluated boards keyed by their hash, shared between search threads. <br>
+ * Entries are stored in two plain arrays without locking. Each key is stored xor-ed with its data,
+ * so an entry torn by a concurrent write fails verification instead of returning the wrong value.
+ *
+ * @author Evan Razzaque
+ */
+public class TranspositionTable {
+    /**
+     * The verification key of each entry (the board's hash xor-ed with the entry's data)
+     */
+    private final long[] keys;
+
+    /**
+     * The data of each entry, with the value's float bits in the low 32 bits and the search depth above them
+     */
+    private final long[] data;
+
+    /**
+     * The mask used to turn a hash into an entry index
+     */
+    private final int mask;
+
+    /**
+     * A constructor for a transposition table.
+     *
+     * @param capacityBits The base 2 logarithm of the number of entries
+     */
+    public TranspositionTable(int capacityBits) {
+        if (capacityBits < 1 || capacityBits > 30)
+            throw new IllegalArgumentException("Capacity must be between 2^1 and 2^30 entries");
+
+        keys = new long[1 << capacityBits];
+        data = new long[1 << capacityBits];
+        mask = (1 << capacityBits) - 1;
+    }
+
+    /**
+     * Gets the number of entries the table can hold.
+     *
+     * @return the capacity of the table
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * A method to look up the value of a board searched to at least a given depth.
+     *
+     * @param hash The hash of the board
+     * @param depth The minimum depth the board must have been searched to
+     * @return the value of the board, or NaN if no suitable entry exists
+     */
+    public double get(long hash, int depth) {
+        int index = (int) (hash ^ (hash >>> 32)) & mask;
+        long entry = data[index];
+
+        if ((keys[index] ^ entry) != hash || (int) (entry >>> 32) < depth) return Double.NaN;
+
+        return Float.intBitsToFloat((int) entry);
+    }
+
+    /**
+     * A method to store the value of a board, replacing the entry for any board with the same index.
+     *
+     * @param hash The hash of the board
+     * @param depth The depth the board was searched to
+     * @param value The value of the board
+     */
+    public void put(long hash, int depth, double value) {
+        int index = (int) (hash ^ (hash >>> 32)) & mask;
+        long entry = (long) depth << 32 | (Float.floatToRawIntBits((float) value) & 0xFFFFFFFFL);
+
+        data[index] = entry;
+        keys[index] = hash ^ entry;
+    }
+
+    /**
+     * A method to remove every entry from the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+}
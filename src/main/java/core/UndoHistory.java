@@ -0,0 +1,272 @@
+package core;
+
+/**
+ * A bounded history of board states used to undo and redo moves. <br>
+ * The history keeps one copy of the board's exponents, and stores every other state as the cells that
+ * changed from the state before it. Changes are packed into a {@code long} each (cell, old exponent, new exponent)
+ * and kept in a fixed-size circular pool, so memory stays bounded however deep the history is.
+ * The Zobrist hash of the stored state is kept alongside it, so checking whether the board has changed does not scan it.
+ *
+ * @author Evan Razzaque
+ */
+public class UndoHistory {
+    /**
+     * The largest number of changed cells the pool stores, regardless of the undo limit
+     */
+    private static final int MAX_POOL_SIZE = 1 << 20;
+
+    /**
+     * The maximum amount of moves that can be undone
+     */
+    private final int undoLimit;
+
+    /**
+     * The exponents of the state the board was at when last recorded or restored
+     */
+    private final byte[] current;
+
+    /**
+     * The Zobrist hash of {@link #current}
+     */
+    private long currentHash;
+
+    /**
+     * The changed cells of every stored transition, packed as (cell << 16 | old exponent << 8 | new exponent)
+     */
+    private final long[] pool;
+
+    /**
+     * The position in the pool of each transition's first change, indexed like {@link #scores}
+     */
+    private final int[] starts;
+
+    /**
+     * The number of changes of each transition
+     */
+    private final int[] lengths;
+
+    /**
+     * The score of each state, where transition {@code i} goes from state {@code i} to state {@code i + 1}
+     */
+    private final long[] scores;
+
+    /**
+     * The ring index of the oldest state
+     */
+    private int oldest;
+
+    /**
+     * The number of stored transitions
+     */
+    private int transitions;
+
+    /**
+     * The state the board is at, from 0 (the oldest state) to {@link #transitions}
+     */
+    private int cursor;
+
+    /**
+     * The number of changes stored in the pool
+     */
+    private int used;
+
+    /**
+     * A constructor for an undo history.
+     *
+     * @param gridSize The size of the grid
+     * @param undoLimit The maximum amount of moves that can be undone
+     */
+    public UndoHistory(int gridSize, int undoLimit) {
+        int cells = gridSize * gridSize;
+
+        this.undoLimit = undoLimit;
+        current = new byte[cells];
+        pool = new long[(int) Math.max(2L * cells, Math.min((long) undoLimit * cells, MAX_POOL_SIZE))];
+        starts = new int[undoLimit + 2];
+        lengths = new int[undoLimit + 2];
+        scores = new long[undoLimit + 2];
+    }
+
+    /**
+     * A method to forget every stored state and start the history from a board.
+     *
+     * @param board The board to start from
+     */
+    public void reset(BoardState board) {
+        for (int cell = 0; cell < current.length; cell++) current[cell] = (byte) board.getExponent(cell);
+        currentHash = board.hash();
+
+        oldest = 0;
+        transitions = 0;
+        cursor = 0;
+        used = 0;
+        scores[0] = board.getScore();
+    }
+
+    /**
+     * Determines if a move can be undone.
+     *
+     * @param board The board the moves were made on
+     * @return whether a move can be undone
+     */
+    public boolean canUndo(BoardState board) {
+        return cursor > 0 || (undoLimit > 0 && differs(board));
+    }
+
+    /**
+     * A method to record the board before it is moved. <br>
+     * Any undone moves can no longer be redone.
+     *
+     * @param board The board before the move
+     */
+    public void push(BoardState board) {
+        dropUndone();
+
+        if (differs(board)) record(board);
+    }
+
+    /**
+     * A method to restore the board to its state before the latest move.
+     *
+     * @param board The board to restore
+     * @return whether a move was undone
+     */
+    public boolean undo(BoardState board) {
+        if (undoLimit == 0) return false;
+
+        // Keeps the board's current state so the move can be redone
+        if (differs(board)) {
+            dropUndone();
+            record(board);
+        }
+
+        if (cursor == 0) return false;
+
+        cursor--;
+        apply(board, ring(cursor), true);
+
+        return true;
+    }
+
+    /**
+     * A method to restore the board to its state before the latest undo.
+     *
+     * @param board The board to restore
+     * @return whether a move was redone
+     */
+    public boolean redo(BoardState board) {
+        if (cursor == transitions || differs(board)) return false;
+
+        apply(board, ring(cursor), false);
+        cursor++;
+
+        return true;
+    }
+
+    /**
+     * A method to store the transition from the current state to a board's state as the newest transition.
+     *
+     * @param board The board to record
+     */
+    private void record(BoardState board) {
+        if (undoLimit == 0) {
+            reset(board);
+            return;
+        }
+
+        int length = 0;
+        for (int cell = 0; cell < current.length; cell++) {
+            if (current[cell] != board.getExponent(cell)) length++;
+        }
+
+        if (length > pool.length) {
+            reset(board);
+            return;
+        }
+
+        while (transitions > 0 && (used + length > pool.length || transitions >= undoLimit)) dropOldest();
+
+        int index = ring(transitions);
+        int start = transitions == 0 ? 0 : (starts[ring(transitions - 1)] + lengths[ring(transitions - 1)]) % pool.length;
+        int position = start;
+
+        for (int cell = 0; cell < current.length; cell++) {
+            int exponent = board.getExponent(cell);
+            if (current[cell] == exponent) continue;
+
+            pool[position] = (long) cell << 16 | (current[cell] & 0xFF) << 8 | exponent;
+            position = (position + 1) % pool.length;
+            current[cell] = (byte) exponent;
+        }
+
+        currentHash = board.hash();
+        starts[index] = start;
+        lengths[index] = length;
+        used += length;
+        transitions++;
+        cursor = transitions;
+        scores[ring(transitions)] = board.getScore();
+    }
+
+    /**
+     * A method to forget the states after the state the history is at.
+     */
+    private void dropUndone() {
+        if (cursor == transitions) return;
+
+        for (int i = cursor; i < transitions; i++) used -= lengths[ring(i)];
+        transitions = cursor;
+    }
+
+    /**
+     * A method to forget the oldest state.
+     */
+    private void dropOldest() {
+        used -= lengths[oldest];
+        oldest = (oldest + 1) % starts.length;
+        transitions--;
+        cursor--;
+    }
+
+    /**
+     * A method to apply a transition to the board.
+     *
+     * @param board The board to apply the transition to
+     * @param index The ring index of the transition
+     * @param backwards Whether to restore the old exponents instead of the new ones
+     */
+    private void apply(BoardState board, int index, boolean backwards) {
+        for (int i = 0; i < lengths[index]; i++) {
+            long change = pool[(starts[index] + i) % pool.length];
+            int cell = (int) (change >>> 16);
+            int exponent = (int) (backwards ? change >>> 8 : change) & 0xFF;
+
+            current[cell] = (byte) exponent;
+            board.setExponent(cell, exponent);
+        }
+
+        currentHash = board.hash();
+
+        board.setScore(scores[(backwards ? index : index + 1) % scores.length]);
+    }
+
+    /**
+     * Determines if a board differs from the state the history is at, by comparing their Zobrist hashes.
+     *
+     * @param board The board to compare
+     * @return whether any cell differs
+     */
+    private boolean differs(BoardState board) {
+        return board.hash() != currentHash;
+    }
+
+    /**
+     * Gets the ring index of a state or transition.
+     *
+     * @param i The state or transition, counting from the oldest
+     * @return the ring index
+     */
+    private int ring(int i) {
+        return (oldest + i) % starts.length;
+    }
+}
@@ -0,0 +1,144 @@
+package core;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * A {@link LineSlider} that slides a whole line at once with the Vector API, one byte lane per cell. <br>
+ * The numbers of the line are compressed towards the wall, neighbouring equal numbers are compared lane by lane,
+ * and the combinations are picked from the comparison mask with bit operations instead of one cell at a time. <br>
+ * Lines longer than the preferred vector (16 to 64 cells, depending on the processor) are slid with
+ * {@link GameEngine#slideLine}. This class needs the {@code jdk.incubator.vector} module, so it must only be loaded
+ * after {@link GameEngine#isVectorMovesSupported()} returns true.
+ *
+ * @author Evan Razzaque
+ */
+final class VectorLineSlider implements LineSlider {
+    /**
+     * The vector shape a line is loaded into
+     */
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    /**
+     * The lanes at even positions of a mask
+     */
+    private static final long EVEN_LANES = 0x5555555555555555L;
+
+    /**
+     * The size of the grid
+     */
+    private final int gridSize;
+
+    /**
+     * The lanes that hold a cell of a line
+     */
+    private final VectorMask<Byte> lineLanes;
+
+    /**
+     * Reverses the cells of a row, for rows whose numbers move right
+     */
+    private final VectorShuffle<Byte> reverse;
+
+    /**
+     * The index offset of each cell of a column from the cell next to the wall, for columns whose numbers move up
+     */
+    private final int[] downOffsets;
+
+    /**
+     * The index offset of each cell of a column from the cell next to the wall, for columns whose numbers move down
+     */
+    private final int[] upOffsets;
+
+    /**
+     * A constructor for a vector line slider.
+     *
+     * @param gridSize The size of the grid the lines are on
+     */
+    VectorLineSlider(int gridSize) {
+        int lanes = SPECIES.length();
+
+        this.gridSize = gridSize;
+        lineLanes = SPECIES.indexInRange(0, gridSize);
+        reverse = VectorShuffle.fromOp(SPECIES, lane -> lane < gridSize ? gridSize - 1 - lane : lane);
+        downOffsets = new int[lanes];
+        upOffsets = new int[lanes];
+
+        for (int lane = 0; lane < Math.min(lanes, gridSize); lane++) {
+            downOffsets[lane] = lane * gridSize;
+            upOffsets[lane] = -lane * gridSize;
+        }
+    }
+
+    /**
+     * A method to slide and combine the numbers of a single line, storing the outcome in line buffers.
+     *
+     * @param board The board containing the line
+     * @param start The cell of the line next to the wall the numbers move towards
+     * @param step The index offset between neighbouring cells of the line, moving away from the wall
+     * @param line The buffer to store the moved line in, which is as long as the line
+     * @param destinations The buffer to store where each cell ended up in (-1 for an empty cell)
+     * @param combined The buffer to store which cells of the moved line were combined in
+     */
+    @Override
+    public void slide(BoardState board, int start, int step, byte[] line, int[] destinations, boolean[] combined) {
+        if (gridSize > SPECIES.length()) {
+            GameEngine.slideLine(board, start, step, line, destinations, combined);
+            return;
+        }
+
+        ByteVector cells = load(board.getCells(), start, step);
+
+        // Moves every number towards the wall
+        VectorMask<Byte> numbers = cells.compare(VectorOperators.NE, 0);
+        ByteVector packed = cells.compress(numbers);
+
+        // A number can combine with the next number if they are equal, and each run of equal numbers
+        // combines in pairs starting from the wall, so every other lane of a run starts a combination
+        long equal = packed.compare(VectorOperators.EQ, packed.slice(1))
+            .and(packed.compare(VectorOperators.NE, 0)).toLong();
+        long runStarts = equal & ~(equal << 1);
+        long evenRuns = ((equal + (runStarts & EVEN_LANES)) ^ equal) & equal;
+        long merges = (evenRuns & EVEN_LANES) | (equal & ~evenRuns & ~EVEN_LANES);
+
+        // The number after each combination is absorbed into it
+        int count = numbers.trueCount();
+        long kept = count == 0 ? 0 : (-1L >>> (Long.SIZE - count)) & ~(merges << 1);
+
+        packed.add((byte) 1, VectorMask.fromLong(SPECIES, merges))
+            .compress(VectorMask.fromLong(SPECIES, kept))
+            .intoArray(line, 0, lineLanes);
+
+        Arrays.fill(destinations, -1);
+        int rank = 0;
+        for (long remaining = numbers.toLong(); remaining != 0; remaining &= remaining - 1) {
+            // The destination of the number is the number of kept lanes up to its packed lane, less one
+            destinations[Long.numberOfTrailingZeros(remaining)] = Long.bitCount(kept & (-1L >>> (Long.SIZE - 1 - rank))) - 1;
+            rank++;
+        }
+
+        Arrays.fill(combined, false);
+        for (long remaining = Long.compress(merges, kept); remaining != 0; remaining &= remaining - 1)
+            combined[Long.numberOfTrailingZeros(remaining)] = true;
+    }
+
+    /**
+     * A method to load the cells of a line into a vector, starting with the cell next to the wall.
+     *
+     * @param cells The exponent of each cell of the board
+     * @param start The cell of the line next to the wall the numbers move towards
+     * @param step The index offset between neighbouring cells of the line, moving away from the wall
+     * @return the exponents of the line, with 0 in the lanes past the end of the line
+     */
+    private ByteVector load(byte[] cells, int start, int step) {
+        if (step == 1) return ByteVector.fromArray(SPECIES, cells, start, lineLanes);
+        if (step == -1) return ByteVector.fromArray(SPECIES, cells, start - gridSize + 1, lineLanes).rearrange(reverse);
+
+        // Columns are not stored next to each other, so their cells are gathered
+        return ByteVector.fromArray(SPECIES, cells, start, step > 0 ? downOffsets : upOffsets, 0, lineLanes);
+    }
+}